@@ -3,12 +3,14 @@ package com.udacity.pricing;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.netflix.eureka.EnableEurekaClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Creates a Spring Boot Application to run the Pricing Service.
  */
 @SpringBootApplication
 @EnableEurekaClient
+@EnableScheduling
 public class PricingServiceApplication {
 
     public static void main(String[] args) {
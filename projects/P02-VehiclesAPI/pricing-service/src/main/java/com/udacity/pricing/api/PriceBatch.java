@@ -0,0 +1,26 @@
+package com.udacity.pricing.api;
+
+import com.udacity.pricing.domain.price.Price;
+import java.util.List;
+
+/**
+ * Prices found by a batch lookup, and the IDs of the vehicles without one.
+ */
+public class PriceBatch {
+
+    private final List<Price> prices;
+    private final List<Long> missing;
+
+    public PriceBatch(List<Price> prices, List<Long> missing) {
+        this.prices = prices;
+        this.missing = missing;
+    }
+
+    public List<Price> getPrices() {
+        return prices;
+    }
+
+    public List<Long> getMissing() {
+        return missing;
+    }
+}
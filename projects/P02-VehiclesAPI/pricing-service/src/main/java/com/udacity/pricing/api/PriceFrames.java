@@ -0,0 +1,85 @@
+package com.udacity.pricing.api;
+
+import com.udacity.pricing.domain.price.Price;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Encodes prices in the binary protocol of the pricing service, a compact
+ * alternative to JSON for calls between services. Responses are a sequence
+ * of length-prefixed frames, big-endian, one per requested vehicle:
+ * <pre>
+ * frame   = length:uint16 type:uint8 body   (length counts type and body)
+ * PRICE   = type 1, vehicleId:int64 amount:int64 scale:uint8 currencyLength:uint8 currency:ASCII
+ * MISSING = type 2, vehicleId:int64
+ * </pre>
+ * where the price is amount * 10^-scale. A batch request body is a
+ * sequence of vehicleId:int64. Readers skip frames of unknown types.
+ */
+final class PriceFrames {
+
+    static final String MEDIA_TYPE_VALUE = "application/vnd.pricing.frames";
+    static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+    static final byte PRICE = 1;
+    static final byte MISSING = 2;
+
+    /**
+     * Largest frame, a price with a currency code of 255 characters.
+     */
+    static final int MAX_FRAME_LENGTH = 2 + 1 + 8 + 8 + 1 + 1 + 255;
+
+    private PriceFrames() {
+    }
+
+    /**
+     * Writes the frame answering a lookup: the price if found, or a miss.
+     * @param out buffer with at least {@link #MAX_FRAME_LENGTH} bytes remaining
+     * @param vehicleId ID number of the vehicle looked up
+     * @param price its price, or empty if it has none
+     */
+    static void write(ByteBuffer out, long vehicleId, Optional<Price> price) {
+        if (!price.isPresent()) {
+            out.putShort((short) 9).put(MISSING).putLong(vehicleId);
+            return;
+        }
+        final BigDecimal amount = price.get().getPrice();
+        final byte[] currency = price.get().getCurrency().getBytes(StandardCharsets.US_ASCII);
+        if (amount.scale() < 0 || amount.scale() > 255 || currency.length > 255) {
+            throw new IllegalArgumentException("Price cannot be encoded: " + amount + " "
+                    + price.get().getCurrency());
+        }
+        out.putShort((short) (19 + currency.length))
+                .put(PRICE)
+                .putLong(vehicleId)
+                .putLong(amount.unscaledValue().longValueExact())
+                .put((byte) amount.scale())
+                .put((byte) currency.length)
+                .put(currency);
+    }
+
+    /**
+     * Reads the vehicle IDs of a batch request.
+     * @param body the request body
+     * @return the vehicle IDs, in request order
+     * @throws ResponseStatusException with 400 Bad Request if the body is not
+     *   a sequence of 8-byte IDs
+     */
+    static long[] readVehicleIds(byte[] body) {
+        if (body.length % Long.BYTES != 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Batch body must be a sequence of 8-byte vehicle IDs");
+        }
+        final ByteBuffer in = ByteBuffer.wrap(body);
+        final long[] vehicleIds = new long[body.length / Long.BYTES];
+        for (int i = 0; i < vehicleIds.length; i++) {
+            vehicleIds[i] = in.getLong();
+        }
+        return vehicleIds;
+    }
+}
@@ -1,35 +1,204 @@
 package com.udacity.pricing.api;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.udacity.pricing.domain.price.Price;
-import com.udacity.pricing.service.PriceException;
+import com.udacity.pricing.domain.price.PricePoint;
 import com.udacity.pricing.service.PricingService;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
- * Implements a REST-based controller for the pricing service.
+ * Implements a REST-based controller for the pricing service, served by
+ * Spring MVC. See {@link ReactivePricingController} for the WebFlux variant.
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/services/price")
 public class PricingController {
 
+    private static final int FRAME_BUFFER_SIZE = 8192;
+
+    private final PricingService pricingService;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter priceWriter;
+
+    public PricingController(PricingService pricingService, ObjectMapper objectMapper) {
+        this.pricingService = pricingService;
+        this.objectMapper = objectMapper;
+        this.priceWriter = objectMapper.writerFor(Price.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
     /**
-     * Gets the price for a requested vehicle.
+     * Gets the price for a requested vehicle, now or at a past time. A vehicle
+     * without a price is answered with 404 Not Found directly, rather than
+     * through an exception and the error page, as misses are frequent.
      * @param vehicleId ID number of the vehicle for which the price is requested
-     * @return price of the vehicle, or error that it was not found.
+     * @param at time at which the price is requested, omit for the current price
+     * @param currency currency in which the price is requested, omit for the
+     *   currency the price is set in. Past prices are converted at the current rates.
+     * @return price of the vehicle, or 404 Not Found if it has none, or
+     *   400 Bad Request if it cannot be converted to the currency
      */
     @GetMapping
-    public Price get(@RequestParam Long vehicleId) {
+    public ResponseEntity<Price> get(@RequestParam Long vehicleId,
+            @RequestParam(required = false) Instant at,
+            @RequestParam(required = false) String currency) {
+        final Optional<Price> price = at == null ? pricingService.findPrice(vehicleId)
+                : pricingService.findPriceAt(vehicleId, at).map(PricePoint::toPrice);
+        return price.map(found -> ResponseEntity.ok(convert(found, currency)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Gets the price for a requested vehicle in the binary protocol of
+     * {@link PriceFrames}, without JSON encoding.
+     * @param vehicleId ID number of the vehicle for which the price is requested
+     * @param currency currency in which the price is requested, omit for the
+     *   currency the price is set in
+     * @return a PRICE frame, or a MISSING frame if the vehicle has no price, or
+     *   400 Bad Request if the price cannot be converted to the currency
+     */
+    @GetMapping(value = "/frames", produces = PriceFrames.MEDIA_TYPE_VALUE)
+    public ResponseEntity<byte[]> getFrame(@RequestParam Long vehicleId,
+            @RequestParam(required = false) String currency) {
+        final ByteBuffer frame = ByteBuffer.allocate(PriceFrames.MAX_FRAME_LENGTH);
+        PriceFrames.write(frame, vehicleId, pricingService.findPrice(vehicleId)
+                .map(price -> convert(price, currency)));
+        return ResponseEntity.ok().contentType(PriceFrames.MEDIA_TYPE)
+                .body(Arrays.copyOf(frame.array(), frame.position()));
+    }
+
+    /**
+     * Gets the prices for a batch of vehicles in the binary protocol of
+     * {@link PriceFrames}. Frames are streamed in request order, as they are
+     * found, so large batches are never buffered.
+     * @param body ID numbers of the vehicles, as a sequence of 8-byte integers
+     * @param currency currency in which the prices are requested, omit for the
+     *   currency each price is set in. As the response is already under way,
+     *   a price that cannot be converted is sent in the currency it is set in.
+     * @return streamed PRICE or MISSING frames, one per requested vehicle
+     */
+    @PostMapping(value = "/frames", consumes = PriceFrames.MEDIA_TYPE_VALUE,
+            produces = PriceFrames.MEDIA_TYPE_VALUE)
+    public ResponseEntity<StreamingResponseBody> getFrames(@RequestBody byte[] body,
+            @RequestParam(required = false) String currency) {
+        final long[] vehicleIds = PriceFrames.readVehicleIds(body);
+        StreamingResponseBody frames = out -> {
+            ByteBuffer buffer = ByteBuffer.allocate(FRAME_BUFFER_SIZE);
+            for (long vehicleId : vehicleIds) {
+                if (buffer.remaining() < PriceFrames.MAX_FRAME_LENGTH) {
+                    out.write(buffer.array(), 0, buffer.position());
+                    buffer.clear();
+                }
+                PriceFrames.write(buffer, vehicleId, findPrice(vehicleId, currency));
+            }
+            out.write(buffer.array(), 0, buffer.position());
+        };
+        return ResponseEntity.ok().contentType(PriceFrames.MEDIA_TYPE).body(frames);
+    }
+
+    /**
+     * Lists the prices a vehicle had over a time range, oldest first, with
+     * the time each was set.
+     * @param vehicleId ID number of the vehicle for which prices are requested
+     * @param from start of the range, by default "pricing.history.default-window" ago
+     * @param to end of the range, by default now
+     * @return the prices set in the range, possibly none
+     */
+    @GetMapping("/history")
+    public List<PricePoint> history(@RequestParam Long vehicleId,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to) {
+        return pricingService.findHistory(vehicleId, from, to);
+    }
+
+    /**
+     * Creates or replaces the price of a vehicle.
+     * @param price the new price, including the vehicle ID it belongs to
+     * @return the stored price, or 400 Bad Request if it is incomplete,
+     *   negative or too large
+     */
+    @PutMapping
+    public Price put(@RequestBody Price price) {
+        if (price.getVehicleId() == null || price.getCurrency() == null
+                || price.getPrice() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Price requires vehicleId, currency and price");
+        }
         try {
-            return PricingService.getPrice(vehicleId);
-        } catch (PriceException ex) {
-            throw new ResponseStatusException(
-                    HttpStatus.NOT_FOUND, "Price Not Found", ex);
+            return pricingService.updatePrice(price);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
         }
+    }
 
+    /**
+     * Gets the prices for a batch of vehicles in a single response.
+     * Prices are streamed as they are found, followed by the IDs of the
+     * vehicles without a price, so large batches are never buffered:
+     * <pre>{"prices":[{...},{...}],"missing":[42]}</pre>
+     * @param vehicleIds ID numbers of the vehicles for which prices are requested
+     * @return streamed prices of the found vehicles and IDs of the missing ones
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<StreamingResponseBody> getBatch(@RequestBody List<Long> vehicleIds) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                List<Long> missing = new ArrayList<>();
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("prices");
+                for (Long vehicleId : vehicleIds) {
+                    Optional<Price> price = pricingService.findPrice(vehicleId);
+                    if (price.isPresent()) {
+                        priceWriter.writeValue(generator, price.get());
+                    } else {
+                        missing.add(vehicleId);
+                    }
+                }
+                generator.writeEndArray();
+                generator.writeArrayFieldStart("missing");
+                for (Long vehicleId : missing) {
+                    generator.writeNumber(vehicleId);
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(body);
+    }
+
+    private Optional<Price> findPrice(long vehicleId, String currency) {
+        return pricingService.findPrice(vehicleId)
+                .map(price -> pricingService.canConvert(price, currency)
+                        ? pricingService.convert(price, currency) : price);
+    }
+
+    private Price convert(Price price, String currency) {
+        if (!pricingService.canConvert(price, currency)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "No exchange rate from " + price.getCurrency() + " to " + currency);
+        }
+        return pricingService.convert(price, currency);
     }
 }
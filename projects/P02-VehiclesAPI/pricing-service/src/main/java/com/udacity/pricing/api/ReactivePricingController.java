@@ -0,0 +1,179 @@
+package com.udacity.pricing.api;
+
+import com.udacity.pricing.domain.price.Price;
+import com.udacity.pricing.domain.price.PricePoint;
+import com.udacity.pricing.service.PricingService;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements the REST-based controller of the pricing service on WebFlux,
+ * served instead of {@link PricingController} when the application runs
+ * with "spring.main.web-application-type=reactive". A vehicle without a
+ * price is an empty result, answered with 404 Not Found, not an exception.
+ * Prices are kept in memory, so lookups run on the event loop.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/services/price")
+public class ReactivePricingController {
+
+    private static final int FRAMES_PER_CHUNK = 256;
+
+    private final PricingService pricingService;
+
+    public ReactivePricingController(PricingService pricingService) {
+        this.pricingService = pricingService;
+    }
+
+    /**
+     * Gets the price for a requested vehicle, now or at a past time.
+     * @param vehicleId ID number of the vehicle for which the price is requested
+     * @param at time at which the price is requested, omit for the current price
+     * @param currency currency in which the price is requested, omit for the
+     *   currency the price is set in. Past prices are converted at the current rates.
+     * @return price of the vehicle, or 404 Not Found if it has none, or
+     *   400 Bad Request if it cannot be converted to the currency
+     */
+    @GetMapping
+    public Mono<ResponseEntity<Price>> get(@RequestParam Long vehicleId,
+            @RequestParam(required = false) Instant at,
+            @RequestParam(required = false) String currency) {
+        return Mono.justOrEmpty(at == null ? pricingService.findPrice(vehicleId)
+                        : pricingService.findPriceAt(vehicleId, at).map(PricePoint::toPrice))
+                .map(price -> ResponseEntity.ok(convert(price, currency)))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Gets the price for a requested vehicle in the binary protocol of
+     * {@link PriceFrames}, without JSON encoding.
+     * @param vehicleId ID number of the vehicle for which the price is requested
+     * @param currency currency in which the price is requested, omit for the
+     *   currency the price is set in
+     * @return a PRICE frame, or a MISSING frame if the vehicle has no price, or
+     *   400 Bad Request if the price cannot be converted to the currency
+     */
+    @GetMapping(value = "/frames", produces = PriceFrames.MEDIA_TYPE_VALUE)
+    public Mono<byte[]> getFrame(@RequestParam Long vehicleId,
+            @RequestParam(required = false) String currency) {
+        return Mono.fromCallable(() -> {
+            final ByteBuffer frame = ByteBuffer.allocate(PriceFrames.MAX_FRAME_LENGTH);
+            PriceFrames.write(frame, vehicleId, pricingService.findPrice(vehicleId)
+                    .map(price -> convert(price, currency)));
+            return Arrays.copyOf(frame.array(), frame.position());
+        });
+    }
+
+    /**
+     * Gets the prices for a batch of vehicles in the binary protocol of
+     * {@link PriceFrames}. Frames are streamed in request order, a chunk of
+     * them at a time, so large batches are never buffered.
+     * @param body ID numbers of the vehicles, as a sequence of 8-byte integers
+     * @param currency currency in which the prices are requested, omit for the
+     *   currency each price is set in. As the response is already under way,
+     *   a price that cannot be converted is sent in the currency it is set in.
+     * @return streamed PRICE or MISSING frames, one per requested vehicle
+     */
+    @PostMapping(value = "/frames", consumes = PriceFrames.MEDIA_TYPE_VALUE,
+            produces = PriceFrames.MEDIA_TYPE_VALUE)
+    public Flux<byte[]> getFrames(@RequestBody Mono<byte[]> body,
+            @RequestParam(required = false) String currency) {
+        return body.flatMapMany(bytes -> {
+            final long[] vehicleIds = PriceFrames.readVehicleIds(bytes);
+            return Flux.range(0, (vehicleIds.length + FRAMES_PER_CHUNK - 1) / FRAMES_PER_CHUNK)
+                    .map(chunk -> encode(vehicleIds, chunk * FRAMES_PER_CHUNK,
+                            Math.min(vehicleIds.length, (chunk + 1) * FRAMES_PER_CHUNK),
+                            currency));
+        });
+    }
+
+    /**
+     * Lists the prices a vehicle had over a time range, oldest first, with
+     * the time each was set.
+     * @param vehicleId ID number of the vehicle for which prices are requested
+     * @param from start of the range, by default "pricing.history.default-window" ago
+     * @param to end of the range, by default now
+     * @return the prices set in the range, possibly none
+     */
+    @GetMapping("/history")
+    public Flux<PricePoint> history(@RequestParam Long vehicleId,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to) {
+        return Flux.fromIterable(pricingService.findHistory(vehicleId, from, to));
+    }
+
+    /**
+     * Creates or replaces the price of a vehicle.
+     * @param price the new price, including the vehicle ID it belongs to
+     * @return the stored price, or 400 Bad Request if it is incomplete,
+     *   negative or too large
+     */
+    @PutMapping
+    public Mono<Price> put(@RequestBody Mono<Price> price) {
+        return price.map(update -> {
+            if (update.getVehicleId() == null || update.getCurrency() == null
+                    || update.getPrice() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Price requires vehicleId, currency and price");
+            }
+            try {
+                return pricingService.updatePrice(update);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Gets the prices for a batch of vehicles in a single response:
+     * <pre>{"prices":[{...},{...}],"missing":[42]}</pre>
+     * @param vehicleIds ID numbers of the vehicles for which prices are requested
+     * @return prices of the found vehicles and IDs of the missing ones
+     */
+    @PostMapping("/batch")
+    public Mono<PriceBatch> getBatch(@RequestBody Mono<List<Long>> vehicleIds) {
+        return vehicleIds.map(ids -> {
+            final PriceBatch batch = new PriceBatch(new ArrayList<>(ids.size()), new ArrayList<>());
+            for (Long vehicleId : ids) {
+                pricingService.findPrice(vehicleId).ifPresentOrElse(
+                        batch.getPrices()::add, () -> batch.getMissing().add(vehicleId));
+            }
+            return batch;
+        });
+    }
+
+    private Price convert(Price price, String currency) {
+        if (!pricingService.canConvert(price, currency)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "No exchange rate from " + price.getCurrency() + " to " + currency);
+        }
+        return pricingService.convert(price, currency);
+    }
+
+    private byte[] encode(long[] vehicleIds, int from, int to, String currency) {
+        final ByteBuffer frames = ByteBuffer.allocate((to - from) * PriceFrames.MAX_FRAME_LENGTH);
+        for (int i = from; i < to; i++) {
+            PriceFrames.write(frames, vehicleIds[i], pricingService.findPrice(vehicleIds[i])
+                    .map(price -> pricingService.canConvert(price, currency)
+                            ? pricingService.convert(price, currency) : price));
+        }
+        return Arrays.copyOf(frames.array(), frames.position());
+    }
+}
@@ -0,0 +1,230 @@
+package com.udacity.pricing.domain.price;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts prices between currencies, with the rates read from
+ * "pricing.fx.rates", a file of the form:
+ * <pre>{"base":"USD","rates":{"USD":1,"EUR":0.92,"GBP":0.79}}</pre>
+ * where each rate is the amount of a currency worth one unit of the base.
+ * The file is read again when it changes; a file that cannot be read keeps
+ * the previous rates in use.
+ * <p>
+ * The cross rate of every pair of currencies is computed once per load, as
+ * the exact fraction of the two decimal rates reduced to lowest terms, e.g.
+ * 79/92 from EUR to GBP. Converting an amount is then a long multiplication
+ * and a rounding division, rounded exactly as BigDecimal would round the
+ * same conversion; BigInteger is only used when the product would overflow.
+ */
+@Component
+public class ExchangeRateTable {
+
+    private static final Logger log = LoggerFactory.getLogger(ExchangeRateTable.class);
+
+    private final ObjectMapper objectMapper;
+    private final Resource source;
+    private volatile Rates rates = new Rates(new HashMap<>(), new BigInteger[0][0],
+            new BigInteger[0][0]);
+    private long lastModified;
+
+    public ExchangeRateTable(ObjectMapper objectMapper,
+            @Value("${pricing.fx.rates:classpath:fx-rates.json}") Resource source) {
+        this.objectMapper = objectMapper;
+        this.source = source;
+    }
+
+    /**
+     * Loads the rates, if the file exists.
+     * @throws IOException if the rates cannot be read or are invalid
+     */
+    @PostConstruct
+    public void load() throws IOException {
+        if (!source.exists()) {
+            log.info("No exchange rates at {}, prices are served in their own currency", source);
+            return;
+        }
+        final long modified = lastModified();
+        try (InputStream in = source.getInputStream()) {
+            rates = read(objectMapper.readTree(in));
+        }
+        lastModified = modified;
+        log.info("Loaded exchange rates of {} currencies from {}", rates.indexes.size(), source);
+    }
+
+    /**
+     * Loads the rates again if the file changed since they were last read.
+     * Invalid rates are logged and ignored.
+     */
+    @Scheduled(fixedDelayString = "${pricing.fx.reload-interval-ms:10000}")
+    public void reload() {
+        final long modified = lastModified();
+        if (modified == 0L || modified == lastModified) {
+            return;
+        }
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            lastModified = modified;
+            log.warn("Could not reload exchange rates from {}, keeping the previous rates",
+                    source, e);
+        }
+    }
+
+    /**
+     * Tells whether prices can be converted to or from a currency.
+     * @param currency the currency code
+     * @return whether the currency has a rate
+     */
+    public boolean supports(String currency) {
+        return rates.indexes.containsKey(currency);
+    }
+
+    /**
+     * Converts a price to another currency, rounding half up to the cent.
+     * @param price the price to convert
+     * @param currency code of the currency to convert to
+     * @return the price in that currency, or the price itself if already in it
+     * @throws IllegalArgumentException if either currency has no rate
+     */
+    public Price convert(Price price, String currency) {
+        if (currency.equals(price.getCurrency())) {
+            return price;
+        }
+        final Rates current = rates;
+        final Integer from = current.indexes.get(price.getCurrency());
+        final Integer to = current.indexes.get(currency);
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("No exchange rate from " + price.getCurrency()
+                    + " to " + currency);
+        }
+        final long amount = price.getPrice().setScale(InMemoryPriceRepository.SCALE,
+                RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        final long numerator = current.numerators[from][to];
+        final long converted;
+        if (numerator != 0L && Math.abs(amount) <= current.limits[from][to]) {
+            converted = divideHalfUp(amount * numerator, current.denominators[from][to]);
+        } else {
+            converted = new BigDecimal(BigInteger.valueOf(amount)
+                    .multiply(current.bigNumerators[from][to]))
+                    .divide(new BigDecimal(current.bigDenominators[from][to]), 0,
+                            RoundingMode.HALF_UP)
+                    .longValueExact();
+        }
+        return new Price(currency, BigDecimal.valueOf(converted, InMemoryPriceRepository.SCALE),
+                price.getVehicleId());
+    }
+
+    /**
+     * Divides, rounding half away from zero as {@link RoundingMode#HALF_UP} does.
+     */
+    private static long divideHalfUp(long dividend, long divisor) {
+        final long quotient = dividend / divisor;
+        final long remainder = Math.abs(dividend % divisor);
+        return remainder >= divisor - remainder ? quotient + Long.signum(dividend) : quotient;
+    }
+
+    private long lastModified() {
+        try {
+            return source.exists() ? source.lastModified() : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private static Rates read(JsonNode root) throws IOException {
+        final JsonNode base = root.path("base");
+        final JsonNode rateNodes = root.path("rates");
+        if (!base.isTextual() || !rateNodes.isObject()) {
+            throw new IOException("Exchange rates require a base currency and rates");
+        }
+        final Map<String, BigDecimal> units = new HashMap<>();
+        units.put(base.asText(), BigDecimal.ONE);
+        for (Iterator<Map.Entry<String, JsonNode>> it = rateNodes.fields(); it.hasNext(); ) {
+            final Map.Entry<String, JsonNode> entry = it.next();
+            if (!entry.getValue().isNumber() || entry.getValue().decimalValue().signum() <= 0) {
+                throw new IOException("Invalid exchange rate for " + entry.getKey());
+            }
+            units.put(entry.getKey(), entry.getValue().decimalValue());
+        }
+
+        final Map<String, Integer> indexes = new HashMap<>();
+        final BigDecimal[] perBase = new BigDecimal[units.size()];
+        for (Map.Entry<String, BigDecimal> entry : units.entrySet()) {
+            perBase[indexes.size()] = entry.getValue().stripTrailingZeros();
+            indexes.put(entry.getKey(), indexes.size());
+        }
+        final BigInteger[][] numerators = new BigInteger[perBase.length][perBase.length];
+        final BigInteger[][] denominators = new BigInteger[perBase.length][perBase.length];
+        for (int from = 0; from < perBase.length; from++) {
+            for (int to = 0; to < perBase.length; to++) {
+                // to / from = (toUnscaled * 10^fromScale) / (fromUnscaled * 10^toScale)
+                BigInteger numerator = perBase[to].unscaledValue();
+                BigInteger denominator = perBase[from].unscaledValue();
+                final int scale = perBase[from].scale() - perBase[to].scale();
+                if (scale > 0) {
+                    numerator = numerator.multiply(BigInteger.TEN.pow(scale));
+                } else if (scale < 0) {
+                    denominator = denominator.multiply(BigInteger.TEN.pow(-scale));
+                }
+                final BigInteger gcd = numerator.gcd(denominator);
+                numerators[from][to] = numerator.divide(gcd);
+                denominators[from][to] = denominator.divide(gcd);
+            }
+        }
+        return new Rates(indexes, numerators, denominators);
+    }
+
+    /**
+     * Holds the cross rates of one load, replaced as a whole on reload. The
+     * long forms are 0 when the fraction does not fit in a long.
+     */
+    private static final class Rates {
+
+        private final Map<String, Integer> indexes;
+        private final BigInteger[][] bigNumerators;
+        private final BigInteger[][] bigDenominators;
+        private final long[][] numerators;
+        private final long[][] denominators;
+        /**
+         * Largest amount whose product with the numerator fits in a long.
+         */
+        private final long[][] limits;
+
+        private Rates(Map<String, Integer> indexes, BigInteger[][] bigNumerators,
+                BigInteger[][] bigDenominators) {
+            this.indexes = indexes;
+            this.bigNumerators = bigNumerators;
+            this.bigDenominators = bigDenominators;
+            final int size = bigNumerators.length;
+            this.numerators = new long[size][size];
+            this.denominators = new long[size][size];
+            this.limits = new long[size][size];
+            for (int from = 0; from < size; from++) {
+                for (int to = 0; to < size; to++) {
+                    if (bigNumerators[from][to].bitLength() < Long.SIZE
+                            && bigDenominators[from][to].bitLength() < Long.SIZE) {
+                        numerators[from][to] = bigNumerators[from][to].longValue();
+                        denominators[from][to] = bigDenominators[from][to].longValue();
+                        limits[from][to] = Long.MAX_VALUE / numerators[from][to];
+                    }
+                }
+            }
+        }
+    }
+}
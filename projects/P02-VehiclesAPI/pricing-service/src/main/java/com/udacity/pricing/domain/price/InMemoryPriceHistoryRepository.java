@@ -0,0 +1,207 @@
+package com.udacity.pricing.domain.price;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Keeps the price history of every vehicle in memory, as a delta encoded
+ * {@link PriceSeries} per vehicle. When "pricing.history.snapshot" names a
+ * file, the history is written to it periodically and on shutdown, in a
+ * compact binary form, and read back on the next startup.
+ */
+@Repository
+public class InMemoryPriceHistoryRepository implements PriceHistoryRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryPriceHistoryRepository.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x50484953;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final Path snapshot;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, PriceSeries> series = new HashMap<>();
+    private final List<String> currencies = new ArrayList<>();
+    private final Map<String, Short> currencyIndexes = new HashMap<>();
+    private volatile boolean dirty;
+
+    public InMemoryPriceHistoryRepository(
+            @Value("${pricing.history.snapshot:}") String snapshot) {
+        this.snapshot = snapshot.isEmpty() ? null : Paths.get(snapshot);
+    }
+
+    /**
+     * Loads the history from the last snapshot, if there is one.
+     * @throws IOException if the snapshot cannot be read
+     */
+    @PostConstruct
+    public void load() throws IOException {
+        if (snapshot == null || !Files.exists(snapshot)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a price history snapshot: " + snapshot);
+            }
+            lock.writeLock().lock();
+            try {
+                series.clear();
+                currencies.clear();
+                currencyIndexes.clear();
+                final int currencyCount = in.readInt();
+                for (int i = 0; i < currencyCount; i++) {
+                    currencyIndex(in.readUTF());
+                }
+                final int seriesCount = in.readInt();
+                for (int i = 0; i < seriesCount; i++) {
+                    final long vehicleId = in.readLong();
+                    series.put(vehicleId, PriceSeries.readFrom(in));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        dirty = false;
+        log.info("Loaded the price history of {} vehicles from snapshot {}", series.size(), snapshot);
+    }
+
+    @Override
+    public boolean record(Price price, Instant at) {
+        Objects.requireNonNull(price.getVehicleId(), "vehicleId");
+        Objects.requireNonNull(price.getCurrency(), "currency");
+        Objects.requireNonNull(price.getPrice(), "price");
+        final long amount = price.getPrice().setScale(InMemoryPriceRepository.SCALE,
+                RoundingMode.HALF_UP).unscaledValue().longValueExact();
+
+        lock.writeLock().lock();
+        try {
+            final boolean recorded = series.computeIfAbsent(price.getVehicleId(),
+                    vehicleId -> new PriceSeries())
+                    .append(at.toEpochMilli(), amount, currencyIndex(price.getCurrency()));
+            dirty |= recorded;
+            return recorded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<PricePoint> findAt(long vehicleId, Instant at) {
+        final List<PricePoint> found = new ArrayList<>(1);
+        lock.readLock().lock();
+        try {
+            final PriceSeries prices = series.get(vehicleId);
+            if (prices != null) {
+                prices.pointAt(at.toEpochMilli(), (time, amount, currency) ->
+                        found.add(point(vehicleId, time, amount, currency)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found.stream().findFirst();
+    }
+
+    @Override
+    public List<PricePoint> findBetween(long vehicleId, Instant from, Instant to) {
+        final List<PricePoint> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            final PriceSeries prices = series.get(vehicleId);
+            if (prices != null) {
+                prices.pointsBetween(from.toEpochMilli(), to.toEpochMilli(),
+                        (time, amount, currency) ->
+                                found.add(point(vehicleId, time, amount, currency)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    /**
+     * Writes the whole history to the snapshot file, if one is configured and
+     * prices were recorded since the last snapshot. The file is replaced atomically.
+     * @throws IOException if the snapshot cannot be written
+     */
+    @Scheduled(fixedDelayString = "${pricing.history.snapshot-interval-ms:60000}")
+    @PreDestroy
+    public void snapshot() throws IOException {
+        if (snapshot == null || !dirty) {
+            return;
+        }
+        dirty = false;
+        Path parent = snapshot.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, snapshot.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            lock.readLock().lock();
+            try {
+                out.writeInt(currencies.size());
+                for (String currency : currencies) {
+                    out.writeUTF(currency);
+                }
+                out.writeInt(series.size());
+                for (Map.Entry<Long, PriceSeries> entry : series.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    entry.getValue().writeTo(out);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        } catch (IOException e) {
+            dirty = true;
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Wrote price history snapshot to {}", snapshot);
+    }
+
+    private PricePoint point(long vehicleId, long time, long amount, short currency) {
+        return new PricePoint(vehicleId, currencies.get(currency),
+                BigDecimal.valueOf(amount, InMemoryPriceRepository.SCALE),
+                Instant.ofEpochMilli(time));
+    }
+
+    private short currencyIndex(String currency) {
+        Short currencyIndex = currencyIndexes.get(currency);
+        if (currencyIndex == null) {
+            if (currencies.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many currencies");
+            }
+            currencyIndex = (short) currencies.size();
+            currencies.add(currency);
+            currencyIndexes.put(currency, currencyIndex);
+        }
+        return currencyIndex;
+    }
+}
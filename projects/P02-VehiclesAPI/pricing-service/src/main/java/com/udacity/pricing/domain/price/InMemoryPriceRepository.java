@@ -0,0 +1,214 @@
+package com.udacity.pricing.domain.price;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Keeps every price in memory, in a primitive index keyed by vehicle ID.
+ * Prices are seeded from "pricing.store.seed" at startup. When
+ * "pricing.store.snapshot" names a file, updates are written to it
+ * periodically and on shutdown, and it takes precedence over the seed
+ * on the next startup.
+ */
+@Repository
+public class InMemoryPriceRepository implements PriceRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryPriceRepository.class);
+
+    /**
+     * Number of decimal places kept for every amount.
+     */
+    static final int SCALE = 2;
+
+    private final ObjectMapper objectMapper;
+    private final Resource seed;
+    private final Path snapshot;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongPriceIndex index;
+    private final List<String> currencies = new ArrayList<>();
+    private final Map<String, Short> currencyIndexes = new HashMap<>();
+    private volatile boolean dirty;
+
+    public InMemoryPriceRepository(ObjectMapper objectMapper,
+            @Value("${pricing.store.seed:classpath:prices.json}") Resource seed,
+            @Value("${pricing.store.snapshot:}") String snapshot,
+            @Value("${pricing.store.initial-capacity:1024}") int initialCapacity) {
+        this.objectMapper = objectMapper;
+        this.seed = seed;
+        this.snapshot = snapshot.isEmpty() ? null : Paths.get(snapshot);
+        this.index = new LongPriceIndex(initialCapacity);
+    }
+
+    /**
+     * Loads the prices from the last snapshot or, if there is none, from the seed.
+     * @throws IOException if the prices cannot be read
+     */
+    @PostConstruct
+    public void load() throws IOException {
+        if (snapshot != null && Files.exists(snapshot)) {
+            try (InputStream in = Files.newInputStream(snapshot)) {
+                load(in);
+            }
+            log.info("Loaded {} prices from snapshot {}", count(), snapshot);
+        } else if (seed.exists()) {
+            try (InputStream in = seed.getInputStream()) {
+                load(in);
+            }
+            log.info("Loaded {} prices from {}", count(), seed);
+        }
+        dirty = false;
+    }
+
+    private void load(InputStream in) throws IOException {
+        try (MappingIterator<Price> prices = objectMapper.readerFor(Price.class).readValues(in)) {
+            while (prices.hasNext()) {
+                save(prices.next());
+            }
+        }
+    }
+
+    @Override
+    public Optional<Price> findByVehicleId(long vehicleId) {
+        lock.readLock().lock();
+        try {
+            int slot = index.slotOf(vehicleId);
+            return slot < 0 ? Optional.empty() : Optional.of(priceAt(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Price save(Price price) {
+        Objects.requireNonNull(price.getVehicleId(), "vehicleId");
+        Objects.requireNonNull(price.getCurrency(), "currency");
+        Objects.requireNonNull(price.getPrice(), "price");
+        BigDecimal scaled = price.getPrice().setScale(SCALE, RoundingMode.HALF_UP);
+        if (scaled.signum() < 0 || scaled.unscaledValue().bitLength() >= Long.SIZE) {
+            throw new IllegalArgumentException("Invalid price " + price.getPrice());
+        }
+        long amount = scaled.unscaledValue().longValue();
+
+        lock.writeLock().lock();
+        try {
+            index.put(price.getVehicleId(), amount, currencyIndex(price.getCurrency()));
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new Price(price.getCurrency(), BigDecimal.valueOf(amount, SCALE),
+                price.getVehicleId());
+    }
+
+    @Override
+    public void forEach(Consumer<Price> action) {
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < index.capacity(); slot++) {
+                if (index.keyAt(slot) != LongPriceIndex.FREE) {
+                    action.accept(priceAt(slot));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes every price to the snapshot file, if one is configured and
+     * prices changed since the last snapshot. The file is replaced atomically.
+     * @throws IOException if the snapshot cannot be written
+     */
+    @Scheduled(fixedDelayString = "${pricing.store.snapshot-interval-ms:60000}")
+    @PreDestroy
+    public void snapshot() throws IOException {
+        if (snapshot == null || !dirty) {
+            return;
+        }
+        dirty = false;
+        Path parent = snapshot.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, snapshot.getFileName().toString(), ".tmp");
+        ObjectWriter writer = objectMapper.writerFor(Price.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (OutputStream out = Files.newOutputStream(temp);
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            lock.readLock().lock();
+            try {
+                for (int slot = 0; slot < index.capacity(); slot++) {
+                    if (index.keyAt(slot) != LongPriceIndex.FREE) {
+                        writer.writeValue(generator, priceAt(slot));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            dirty = true;
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Wrote prices snapshot to {}", snapshot);
+    }
+
+    private Price priceAt(int slot) {
+        return new Price(currencies.get(index.currencyAt(slot)),
+                BigDecimal.valueOf(index.amountAt(slot), SCALE), index.keyAt(slot));
+    }
+
+    private short currencyIndex(String currency) {
+        Short currencyIndex = currencyIndexes.get(currency);
+        if (currencyIndex == null) {
+            if (currencies.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many currencies");
+            }
+            currencyIndex = (short) currencies.size();
+            currencies.add(currency);
+            currencyIndexes.put(currency, currencyIndex);
+        }
+        return currencyIndex;
+    }
+}
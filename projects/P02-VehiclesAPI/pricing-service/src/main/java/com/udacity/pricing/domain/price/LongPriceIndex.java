@@ -0,0 +1,136 @@
+package com.udacity.pricing.domain.price;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash index from vehicle ID to price, stored in parallel
+ * primitive arrays so lookups never box keys. A slot takes 18 bytes and
+ * the table is kept at most half full, so each entry costs about 36 bytes,
+ * up to twice that right after the table grows. Amounts are kept as
+ * hundredths of the currency unit, currencies as an index into a small
+ * table of currency codes.
+ * Not thread safe, callers are expected to guard access.
+ */
+final class LongPriceIndex {
+
+    /**
+     * Marks a free slot; vehicle IDs can never take this value.
+     */
+    static final long FREE = Long.MIN_VALUE;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private long[] amounts;
+    private short[] currencies;
+    private int mask;
+    private int size;
+
+    LongPriceIndex(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Finds the slot holding a vehicle ID.
+     * @param vehicleId ID number of the vehicle
+     * @return slot of the vehicle, or -1 if it is not indexed
+     */
+    int slotOf(long vehicleId) {
+        int slot = mix(vehicleId) & mask;
+        long key;
+        while ((key = keys[slot]) != FREE) {
+            if (key == vehicleId) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    long amountAt(int slot) {
+        return amounts[slot];
+    }
+
+    short currencyAt(int slot) {
+        return currencies[slot];
+    }
+
+    /**
+     * Creates or replaces the entry of a vehicle.
+     * @param vehicleId ID number of the vehicle
+     * @param amount price in hundredths of the currency unit
+     * @param currency index of the currency code
+     */
+    void put(long vehicleId, long amount, short currency) {
+        if (vehicleId == FREE) {
+            throw new IllegalArgumentException("Invalid vehicle ID " + vehicleId);
+        }
+        int slot = mix(vehicleId) & mask;
+        while (keys[slot] != FREE && keys[slot] != vehicleId) {
+            slot = (slot + 1) & mask;
+        }
+        boolean added = keys[slot] == FREE;
+        keys[slot] = vehicleId;
+        amounts[slot] = amount;
+        currencies[slot] = currency;
+        if (added && ++size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Number of slots, to iterate over them together with {@link #keyAt(int)}.
+     * @return current table length
+     */
+    int capacity() {
+        return keys.length;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldAmounts = amounts;
+        short[] oldCurrencies = currencies;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != FREE) {
+                int slot = mix(key) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                amounts[slot] = oldAmounts[i];
+                currencies[slot] = oldCurrencies[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        amounts = new long[capacity];
+        currencies = new short[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+        if (needed > 1 << 30) {
+            throw new IllegalArgumentException("Too many prices: " + expectedSize);
+        }
+        return Math.max(Integer.highestOneBit((int) needed - 1) << 1, 2);
+    }
+
+    private static int mix(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,38 @@
+package com.udacity.pricing.domain.price;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Declares the operations of an append-only store of past vehicle prices.
+ */
+public interface PriceHistoryRepository {
+
+    /**
+     * Records the price of a vehicle from a given time, unless the vehicle
+     * already had this price. Prices recorded out of order are kept at the
+     * time of the latest price of the vehicle.
+     * @param price the price, including its vehicle ID
+     * @param at time from which the vehicle has this price
+     * @return whether the price was recorded
+     */
+    boolean record(Price price, Instant at);
+
+    /**
+     * Finds the price a vehicle had at a given time.
+     * @param vehicleId ID number of the vehicle
+     * @param at the time
+     * @return the latest price recorded up to that time, or empty if none was
+     */
+    Optional<PricePoint> findAt(long vehicleId, Instant at);
+
+    /**
+     * Finds the prices recorded for a vehicle in a time range, oldest first.
+     * @param vehicleId ID number of the vehicle
+     * @param from start of the range, inclusive
+     * @param to end of the range, inclusive
+     * @return the prices recorded in the range, possibly none
+     */
+    List<PricePoint> findBetween(long vehicleId, Instant from, Instant to);
+}
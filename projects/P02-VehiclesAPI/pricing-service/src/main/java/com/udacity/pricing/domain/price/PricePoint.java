@@ -0,0 +1,50 @@
+package com.udacity.pricing.domain.price;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Represents the price of a vehicle from a given time, in its price history.
+ */
+public class PricePoint {
+
+    private final Long vehicleId;
+    private final String currency;
+    private final BigDecimal price;
+    private final Instant at;
+
+    public PricePoint(Long vehicleId, String currency, BigDecimal price, Instant at) {
+        this.vehicleId = vehicleId;
+        this.currency = currency;
+        this.price = price;
+        this.at = at;
+    }
+
+    public Long getVehicleId() {
+        return vehicleId;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    /**
+     * Time from which the vehicle had this price.
+     * @return time the price was set
+     */
+    public Instant getAt() {
+        return at;
+    }
+
+    /**
+     * Drops the time of the point.
+     * @return the price alone
+     */
+    public Price toPrice() {
+        return new Price(currency, price, vehicleId);
+    }
+}
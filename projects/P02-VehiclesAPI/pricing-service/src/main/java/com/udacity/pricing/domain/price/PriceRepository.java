@@ -1,8 +1,38 @@
 package com.udacity.pricing.domain.price;
 
-import org.springframework.stereotype.Repository;
+import java.util.Optional;
+import java.util.function.Consumer;
 
-@Repository
-public class PriceRepository {
+/**
+ * Declares the operations of a store for vehicle prices, so the pricing
+ * service does not depend on where the prices are kept.
+ */
+public interface PriceRepository {
 
+    /**
+     * Finds the price of a given vehicle.
+     * @param vehicleId ID number of the vehicle
+     * @return price of the vehicle, or empty if it has none
+     */
+    Optional<Price> findByVehicleId(long vehicleId);
+
+    /**
+     * Creates or replaces the price of the vehicle the price belongs to.
+     * @param price the new price, including its vehicle ID
+     * @return the stored price
+     * @throws IllegalArgumentException if the amount is negative or too large to be stored
+     */
+    Price save(Price price);
+
+    /**
+     * Passes every stored price to the given action, in no particular order.
+     * @param action what to do with each price
+     */
+    void forEach(Consumer<Price> action);
+
+    /**
+     * Counts the vehicles with a price.
+     * @return number of stored prices
+     */
+    long count();
 }
@@ -0,0 +1,303 @@
+package com.udacity.pricing.domain.price;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Append-only price history of one vehicle, delta encoded in a byte array.
+ * Each point takes the time elapsed since the previous point, in
+ * milliseconds, and the change of amount, in hundredths, both as variable
+ * length integers; the lowest bit of the time delta flags a change of
+ * currency, followed then by the new currency index. A price updated daily
+ * takes about six bytes per point.
+ * <p>
+ * Every {@value #CHECKPOINT_INTERVAL} points a checkpoint records where the
+ * point starts and the state it is decoded from, so lookups binary search
+ * the checkpoints and decode at most one block.
+ * Not thread safe, callers are expected to guard access.
+ */
+final class PriceSeries {
+
+    static final int CHECKPOINT_INTERVAL = 64;
+
+    /**
+     * Longest encoding of a point: two 64-bit deltas and a 16-bit currency.
+     */
+    private static final int MAX_POINT_BYTES = 10 + 10 + 3;
+
+    private byte[] data = new byte[16];
+    private int length;
+    private int count;
+    private long lastTime;
+    private long lastAmount;
+    private short lastCurrency = -1;
+
+    private int[] checkpointOffsets = new int[1];
+    private long[] checkpointTimes = new long[1];
+    private long[] checkpointPreviousTimes = new long[1];
+    private long[] checkpointPreviousAmounts = new long[1];
+    private short[] checkpointPreviousCurrencies = new short[1];
+
+    /**
+     * Visits the points of a series.
+     */
+    interface PointConsumer {
+
+        /**
+         * Receives a point.
+         * @param time epoch milliseconds of the point
+         * @param amount price in hundredths of the currency unit
+         * @param currency index of the currency code
+         */
+        void accept(long time, long amount, short currency);
+    }
+
+    /**
+     * Appends a point, unless the price is the same as the latest one.
+     * Points are kept in time order: a point older than the latest one is
+     * recorded at the time of the latest one.
+     * @param time epoch milliseconds of the point
+     * @param amount price in hundredths of the currency unit
+     * @param currency index of the currency code
+     * @return whether the point was appended
+     */
+    boolean append(long time, long amount, short currency) {
+        if (time < 0) {
+            throw new IllegalArgumentException("Invalid price time " + time);
+        }
+        if (count > 0 && amount == lastAmount && currency == lastCurrency) {
+            return false;
+        }
+        final long at = count > 0 ? Math.max(time, lastTime) : time;
+        if (count % CHECKPOINT_INTERVAL == 0) {
+            checkpoint(at);
+        }
+        final boolean currencyChanged = currency != lastCurrency;
+        ensureCapacity(MAX_POINT_BYTES);
+        writeVarLong(((at - lastTime) << 1) | (currencyChanged ? 1 : 0));
+        writeVarLong(zigZag(amount - lastAmount));
+        if (currencyChanged) {
+            writeVarLong(currency);
+        }
+        lastTime = at;
+        lastAmount = amount;
+        lastCurrency = currency;
+        count++;
+        return true;
+    }
+
+    /**
+     * Finds the point in effect at a time: the latest one not after it.
+     * @param time epoch milliseconds
+     * @param consumer receives the point, if there is one
+     * @return whether a point was found
+     */
+    boolean pointAt(long time, PointConsumer consumer) {
+        if (count == 0 || time < checkpointTimes[0]) {
+            return false;
+        }
+        final Cursor cursor = new Cursor(blockOf(time));
+        long foundTime = 0;
+        long foundAmount = 0;
+        short foundCurrency = 0;
+        while (cursor.next() && cursor.time <= time) {
+            foundTime = cursor.time;
+            foundAmount = cursor.amount;
+            foundCurrency = cursor.currency;
+        }
+        consumer.accept(foundTime, foundAmount, foundCurrency);
+        return true;
+    }
+
+    /**
+     * Visits the points between two times, oldest first.
+     * @param from epoch milliseconds of the first point, inclusive
+     * @param to epoch milliseconds of the last point, inclusive
+     * @param consumer receives each point
+     */
+    void pointsBetween(long from, long to, PointConsumer consumer) {
+        if (count == 0 || from > to) {
+            return;
+        }
+        final Cursor cursor = new Cursor(blockBefore(from));
+        while (cursor.next() && cursor.time <= to) {
+            if (cursor.time >= from) {
+                consumer.accept(cursor.time, cursor.amount, cursor.currency);
+            }
+        }
+    }
+
+    /**
+     * Visits every point, oldest first.
+     * @param consumer receives each point
+     */
+    void forEach(PointConsumer consumer) {
+        final Cursor cursor = new Cursor(0);
+        while (cursor.next()) {
+            consumer.accept(cursor.time, cursor.amount, cursor.currency);
+        }
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * Writes the encoded points, to be read back by {@link #readFrom(DataInput)}.
+     * @param out where to write
+     * @throws IOException if the points cannot be written
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(count);
+        out.writeInt(length);
+        out.write(data, 0, length);
+    }
+
+    /**
+     * Reads points written by {@link #writeTo(DataOutput)}, rebuilding the checkpoints.
+     * @param in where to read from
+     * @return the series read
+     * @throws IOException if the points cannot be read
+     */
+    static PriceSeries readFrom(DataInput in) throws IOException {
+        final PriceSeries encoded = new PriceSeries();
+        encoded.count = in.readInt();
+        encoded.length = in.readInt();
+        encoded.data = new byte[encoded.length];
+        in.readFully(encoded.data);
+        final PriceSeries series = new PriceSeries();
+        encoded.forEach(series::append);
+        return series;
+    }
+
+    /**
+     * Number of bytes taken by the encoded points.
+     * @return length of the encoded points
+     */
+    int encodedLength() {
+        return length;
+    }
+
+    private void checkpoint(long time) {
+        final int block = count / CHECKPOINT_INTERVAL;
+        if (block == checkpointOffsets.length) {
+            final int capacity = block * 2;
+            checkpointOffsets = Arrays.copyOf(checkpointOffsets, capacity);
+            checkpointTimes = Arrays.copyOf(checkpointTimes, capacity);
+            checkpointPreviousTimes = Arrays.copyOf(checkpointPreviousTimes, capacity);
+            checkpointPreviousAmounts = Arrays.copyOf(checkpointPreviousAmounts, capacity);
+            checkpointPreviousCurrencies = Arrays.copyOf(checkpointPreviousCurrencies, capacity);
+        }
+        checkpointOffsets[block] = length;
+        checkpointTimes[block] = time;
+        checkpointPreviousTimes[block] = lastTime;
+        checkpointPreviousAmounts[block] = lastAmount;
+        checkpointPreviousCurrencies[block] = lastCurrency;
+    }
+
+    /**
+     * Finds the last block starting at or before a time.
+     */
+    private int blockOf(long time) {
+        int low = 0;
+        int high = (count - 1) / CHECKPOINT_INTERVAL;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (checkpointTimes[middle] <= time) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the last block starting strictly before a time, or the first
+     * block if there is none. Points at that very time may end the previous
+     * block when several share a time, so a block starting at it is too late.
+     */
+    private int blockBefore(long time) {
+        int low = 0;
+        int high = (count - 1) / CHECKPOINT_INTERVAL;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (checkpointTimes[middle] < time) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+        }
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Decodes the points from the start of a block.
+     */
+    private final class Cursor {
+
+        private int offset;
+        private int index;
+        private long time;
+        private long amount;
+        private short currency;
+
+        Cursor(int block) {
+            offset = checkpointOffsets[block];
+            index = block * CHECKPOINT_INTERVAL;
+            time = checkpointPreviousTimes[block];
+            amount = checkpointPreviousAmounts[block];
+            currency = checkpointPreviousCurrencies[block];
+        }
+
+        boolean next() {
+            if (index == count) {
+                return false;
+            }
+            final long timeDelta = readVarLong();
+            time += timeDelta >>> 1;
+            amount += unZigZag(readVarLong());
+            if ((timeDelta & 1) != 0) {
+                currency = (short) readVarLong();
+            }
+            index++;
+            return true;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
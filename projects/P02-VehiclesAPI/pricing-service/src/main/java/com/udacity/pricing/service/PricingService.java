@@ -1,49 +1,141 @@
 package com.udacity.pricing.service;
 
+import com.udacity.pricing.domain.price.ExchangeRateTable;
 import com.udacity.pricing.domain.price.Price;
-
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.Map;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
-import java.util.stream.LongStream;
+import com.udacity.pricing.domain.price.PriceHistoryRepository;
+import com.udacity.pricing.domain.price.PricePoint;
+import com.udacity.pricing.domain.price.PriceRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
 
 /**
- * Implements the pricing service to get prices for each vehicle.
+ * Implements the pricing service to get prices for each vehicle, and the
+ * prices they had in the past. Every price update is recorded in the
+ * price history. Prices can be requested in another currency than the one
+ * they are stored in, at the rates of the {@link ExchangeRateTable}.
  */
+@Service
 public class PricingService {
 
+    private final PriceRepository repository;
+    private final PriceHistoryRepository history;
+    private final ExchangeRateTable exchangeRates;
+    private final Duration historyWindow;
+
+    public PricingService(PriceRepository repository, PriceHistoryRepository history,
+            ExchangeRateTable exchangeRates,
+            @Value("${pricing.history.default-window:P90D}") Duration historyWindow) {
+        this.repository = repository;
+        this.history = history;
+        this.exchangeRates = exchangeRates;
+        this.historyWindow = historyWindow;
+    }
+
     /**
-     * Holds {ID: Price} pairings (current implementation allows for 20 vehicles)
+     * Records the prices loaded at startup in the history, so it starts from
+     * them. Prices unchanged since the history was last written are skipped.
      */
-    private static final Map<Long, Price> PRICES = LongStream
-            .range(1, 20)
-            .mapToObj(i -> new Price("USD", randomPrice(), i))
-            .collect(Collectors.toMap(Price::getVehicleId, p -> p));
+    @PostConstruct
+    public void recordCurrentPrices() {
+        final Instant now = Instant.now();
+        repository.forEach(price -> history.record(price, now));
+    }
 
     /**
-     * If a valid vehicle ID, gets the price of the vehicle from the stored array.
+     * If a valid vehicle ID, gets the price of the vehicle from the price store.
+     * A miss costs an exception and its stack trace: callers expecting
+     * unpriced vehicles should use {@link #findPrice(Long)}.
      * @param vehicleId ID number of the vehicle the price is requested for.
      * @return price of the requested vehicle
      * @throws PriceException vehicleID was not found
      */
-    public static Price getPrice(Long vehicleId) throws PriceException {
+    public Price getPrice(Long vehicleId) throws PriceException {
+        return findPrice(vehicleId).orElseThrow(
+                () -> new PriceException("Cannot find price for Vehicle " + vehicleId));
+    }
 
-        if (!PRICES.containsKey(vehicleId)) {
-            throw new PriceException("Cannot find price for Vehicle " + vehicleId);
+    /**
+     * Looks up the price of a vehicle without signalling a miss as an exception,
+     * for callers that expect many vehicles to be unpriced. A miss is a single
+     * probe of the price index, and allocates nothing.
+     * @param vehicleId ID number of the vehicle the price is requested for.
+     * @return price of the requested vehicle, or empty if it was not found
+     */
+    public Optional<Price> findPrice(Long vehicleId) {
+        if (vehicleId == null) {
+            return Optional.empty();
         }
+        return repository.findByVehicleId(vehicleId);
+    }
 
-        return PRICES.get(vehicleId);
+    /**
+     * Tells whether a price can be converted to a currency: it is already in
+     * that currency, or both currencies have a rate.
+     * @param price the price to convert
+     * @param currency code of the currency to convert to, or null to keep the price as is
+     * @return whether {@link #convert(Price, String)} accepts them
+     */
+    public boolean canConvert(Price price, String currency) {
+        return currency == null || currency.equals(price.getCurrency())
+                || (exchangeRates.supports(price.getCurrency())
+                        && exchangeRates.supports(currency));
     }
 
     /**
-     * Gets a random price to fill in for a given vehicle ID.
-     * @return random price for a vehicle
+     * Converts a price to another currency.
+     * @param price the price to convert
+     * @param currency code of the currency to convert to, or null to keep the price as is
+     * @return the price in that currency
+     * @throws IllegalArgumentException if there is no rate for the conversion
      */
-    private static BigDecimal randomPrice() {
-        return new BigDecimal(ThreadLocalRandom.current().nextDouble(1, 5))
-                .multiply(new BigDecimal(5000d)).setScale(2, RoundingMode.HALF_UP);
+    public Price convert(Price price, String currency) {
+        return currency == null ? price : exchangeRates.convert(price, currency);
+    }
+
+    /**
+     * Creates or replaces the price of a vehicle.
+     * @param price the new price, including the vehicle ID it belongs to
+     * @return the stored price
+     * @throws IllegalArgumentException if the amount is negative or too large to be stored
+     */
+    public Price updatePrice(Price price) {
+        final Price saved = repository.save(price);
+        history.record(saved, Instant.now());
+        return saved;
+    }
+
+    /**
+     * Looks up the price a vehicle had at a given time.
+     * @param vehicleId ID number of the vehicle the price is requested for.
+     * @param at the time
+     * @return price of the vehicle at that time, or empty if it had none
+     */
+    public Optional<PricePoint> findPriceAt(Long vehicleId, Instant at) {
+        if (vehicleId == null) {
+            return Optional.empty();
+        }
+        return history.findAt(vehicleId, at);
+    }
+
+    /**
+     * Lists the prices a vehicle had over a time range, oldest first.
+     * @param vehicleId ID number of the vehicle the prices are requested for.
+     * @param from start of the range, or null for "pricing.history.default-window" ago
+     * @param to end of the range, or null for now
+     * @return the prices set in the range
+     */
+    public List<PricePoint> findHistory(Long vehicleId, Instant from, Instant to) {
+        if (vehicleId == null) {
+            return Collections.emptyList();
+        }
+        final Instant end = to == null ? Instant.now() : to;
+        return history.findBetween(vehicleId, from == null ? end.minus(historyWindow) : from, end);
     }
 
 }
@@ -8,6 +8,7 @@ import com.udacity.pricing.service.PriceException;
 import com.udacity.pricing.service.PricingService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
@@ -15,19 +16,22 @@ import org.springframework.test.context.junit4.SpringRunner;
 @SpringBootTest
 public class PricingServiceApplicationTests {
 
+  @Autowired
+  private PricingService pricingService;
+
   @Test
   public void contextLoads() {
   }
 
   @Test
   public void checkIfThereIsPriceForTheFirstCar() throws PriceException {
-    final Price price = PricingService.getPrice(1L);
+    final Price price = pricingService.getPrice(1L);
     assertNotNull(price.getPrice());
   }
 
   @Test(expected = PriceException.class)
   public void zeroIdCarShouldBeThrowException() throws PriceException {
-    PricingService.getPrice(0L);
+    pricingService.getPrice(0L);
     fail();
   }
 
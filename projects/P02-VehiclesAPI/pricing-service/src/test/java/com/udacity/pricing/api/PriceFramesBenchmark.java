@@ -0,0 +1,86 @@
+package com.udacity.pricing.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.pricing.domain.price.Price;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares encoding a batch of 100 prices, 10 of them missing, as the JSON
+ * of the batch endpoint and as {@link PriceFrames}. Not run by the build,
+ * start it from the test classpath:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath com.udacity.pricing.api.PriceFramesBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceFramesBenchmark {
+
+    private static final int PRICES = 100;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ByteBuffer frames = ByteBuffer.allocate(PRICES * PriceFrames.MAX_FRAME_LENGTH);
+    private List<Optional<Price>> prices;
+    private PriceBatch batch;
+
+    @Setup
+    public void setup() {
+        prices = new ArrayList<>(PRICES);
+        batch = new PriceBatch(new ArrayList<>(), new ArrayList<>());
+        for (long vehicleId = 1; vehicleId <= PRICES; vehicleId++) {
+            if (vehicleId % 10 == 0) {
+                prices.add(Optional.empty());
+                batch.getMissing().add(vehicleId);
+            } else {
+                Price price = new Price("USD", BigDecimal.valueOf(1_000_000 + vehicleId * 977, 2),
+                        vehicleId);
+                prices.add(Optional.of(price));
+                batch.getPrices().add(price);
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(batch);
+    }
+
+    @Benchmark
+    public int encodeFrames() {
+        frames.clear();
+        for (int i = 0; i < PRICES; i++) {
+            PriceFrames.write(frames, i + 1, prices.get(i));
+        }
+        return frames.position();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PriceFramesBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
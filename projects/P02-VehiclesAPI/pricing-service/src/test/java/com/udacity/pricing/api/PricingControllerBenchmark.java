@@ -0,0 +1,155 @@
+package com.udacity.pricing.api;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.pricing.domain.price.ExchangeRateTable;
+import com.udacity.pricing.domain.price.InMemoryPriceHistoryRepository;
+import com.udacity.pricing.domain.price.InMemoryPriceRepository;
+import com.udacity.pricing.service.PricingService;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Compares the throughput of price lookups through the Spring MVC controller
+ * and the WebFlux controller, which both answer a miss with 404 Not Found
+ * from an empty result, without an exception. Both are called in-process,
+ * without a server, over the seed prices; "missRate" is the share of lookups
+ * for unpriced vehicles. The "Handler" benchmarks call the controller methods
+ * alone, the others dispatch requests through the framework's test clients,
+ * whose own cost is included. Not run by the build, start it from the test
+ * classpath:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath com.udacity.pricing.api.PricingControllerBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingControllerBenchmark {
+
+    private static final int LOOKUPS = 100;
+    private static final int PRICED_VEHICLES = 19;
+
+    @Param({"0.1", "0.9"})
+    private double missRate;
+
+    private long[] vehicleIds;
+    private String[] uris;
+    private PricingController controller;
+    private ReactivePricingController reactiveController;
+    private MockMvc mvc;
+    private WebTestClient client;
+
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        InMemoryPriceRepository repository = new InMemoryPriceRepository(objectMapper,
+                new ClassPathResource("prices.json"), "", 1024);
+        repository.load();
+        PricingService pricingService = new PricingService(repository,
+                new InMemoryPriceHistoryRepository(""),
+                new ExchangeRateTable(objectMapper, new ClassPathResource("fx-rates.json")),
+                Duration.ofDays(90));
+
+        vehicleIds = new long[LOOKUPS];
+        uris = new String[LOOKUPS];
+        int misses = (int) Math.round(missRate * LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            vehicleIds[i] = i < misses ? 1000 + i : 1 + i % PRICED_VEHICLES;
+            uris[i] = "/services/price?vehicleId=" + vehicleIds[i];
+        }
+        controller = new PricingController(pricingService, objectMapper);
+        reactiveController = new ReactivePricingController(pricingService);
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+        client = WebTestClient.bindToController(reactiveController).build();
+    }
+
+    /**
+     * Calls the MVC handler.
+     * @return sum of the response statuses
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int mvcHandler() {
+        int status = 0;
+        for (long vehicleId : vehicleIds) {
+            status += controller.get(vehicleId, null, null).getStatusCodeValue();
+        }
+        return status;
+    }
+
+    /**
+     * Calls the WebFlux handler, subscribing to its result.
+     * @return sum of the response statuses
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int webfluxHandler() {
+        int status = 0;
+        for (long vehicleId : vehicleIds) {
+            status += reactiveController.get(vehicleId, null, null).block().getStatusCodeValue();
+        }
+        return status;
+    }
+
+    /**
+     * Dispatches the lookups through Spring MVC.
+     * @return sum of the response statuses
+     * @throws Exception if a request cannot be dispatched
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int mvc() throws Exception {
+        int status = 0;
+        for (String uri : uris) {
+            status += mvc.perform(get(uri)).andReturn().getResponse().getStatus();
+        }
+        return status;
+    }
+
+    /**
+     * Dispatches the lookups through WebFlux.
+     * @return sum of the response statuses
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int webflux() {
+        int status = 0;
+        for (String uri : uris) {
+            status += client.get().uri(uri).exchange().returnResult(byte[].class)
+                    .getStatus().value();
+        }
+        return status;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PricingControllerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
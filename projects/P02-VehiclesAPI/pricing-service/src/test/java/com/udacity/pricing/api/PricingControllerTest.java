@@ -0,0 +1,174 @@
+package com.udacity.pricing.api;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class PricingControllerTest {
+
+  @Autowired
+  private MockMvc mvc;
+
+  @Test
+  public void getReturnsPrice() throws Exception {
+    mvc.perform(get("/services/price").param("vehicleId", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.vehicleId").value(1))
+        .andExpect(jsonPath("$.price").value(23112.79));
+  }
+
+  @Test
+  public void getAnswersMissWithNotFound() throws Exception {
+    mvc.perform(get("/services/price").param("vehicleId", "42"))
+        .andExpect(status().isNotFound())
+        .andExpect(content().string(""));
+  }
+
+  @Test
+  public void getConvertsToRequestedCurrency() throws Exception {
+    mvc.perform(get("/services/price").param("vehicleId", "1").param("currency", "EUR"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.currency").value("EUR"))
+        .andExpect(jsonPath("$.price").value(21263.77));
+    mvc.perform(get("/services/price").param("vehicleId", "1").param("currency", "XXX"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void getKeepsPricesInRequestedCurrencyAndRefusesUnknownSource() throws Exception {
+    mvc.perform(put("/services/price")
+        .content("{\"vehicleId\":9001,\"currency\":\"XYZ\",\"price\":100.50}")
+        .contentType(MediaType.APPLICATION_JSON_UTF8))
+        .andExpect(status().isOk());
+
+    mvc.perform(get("/services/price").param("vehicleId", "9001").param("currency", "XYZ"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.currency").value("XYZ"))
+        .andExpect(jsonPath("$.price").value(100.50));
+    mvc.perform(get("/services/price").param("vehicleId", "9001").param("currency", "EUR"))
+        .andExpect(status().isBadRequest());
+    mvc.perform(get("/services/price/frames").param("vehicleId", "9001").param("currency", "EUR")
+        .accept(PriceFrames.MEDIA_TYPE))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void putRejectsNegativeAndOversizedPrices() throws Exception {
+    mvc.perform(put("/services/price")
+        .content("{\"vehicleId\":9003,\"currency\":\"USD\",\"price\":-1}")
+        .contentType(MediaType.APPLICATION_JSON_UTF8))
+        .andExpect(status().isBadRequest());
+    mvc.perform(put("/services/price")
+        .content("{\"vehicleId\":9003,\"currency\":\"USD\",\"price\":1e30}")
+        .contentType(MediaType.APPLICATION_JSON_UTF8))
+        .andExpect(status().isBadRequest());
+    mvc.perform(get("/services/price").param("vehicleId", "9003"))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void historyKeepsEveryUpdatedPrice() throws Exception {
+    Instant before = Instant.now();
+    mvc.perform(put("/services/price")
+        .content("{\"vehicleId\":3,\"currency\":\"USD\",\"price\":100.50}")
+        .contentType(MediaType.APPLICATION_JSON_UTF8))
+        .andExpect(status().isOk());
+    Thread.sleep(5);
+    mvc.perform(put("/services/price")
+        .content("{\"vehicleId\":3,\"currency\":\"USD\",\"price\":200.75}")
+        .contentType(MediaType.APPLICATION_JSON_UTF8))
+        .andExpect(status().isOk());
+
+    mvc.perform(get("/services/price/history").param("vehicleId", "3")
+        .param("from", before.toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$", hasSize(2)))
+        .andExpect(jsonPath("$[0].price").value(100.50))
+        .andExpect(jsonPath("$[1].price").value(200.75));
+    mvc.perform(get("/services/price").param("vehicleId", "3")
+        .param("at", before.minusSeconds(1).toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.vehicleId").value(3))
+        .andExpect(jsonPath("$.price").isNumber());
+  }
+
+  @Test
+  public void batchReturnsFoundPricesAndMisses() throws Exception {
+    MvcResult result = mvc.perform(
+        post("/services/price/batch")
+            .content("[1, 2, 42]")
+            .contentType(MediaType.APPLICATION_JSON_UTF8))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.prices", hasSize(2)))
+        .andExpect(jsonPath("$.prices[0].vehicleId").value(1))
+        .andExpect(jsonPath("$.prices[1].vehicleId").value(2))
+        .andExpect(jsonPath("$.missing", contains(42)));
+  }
+
+  @Test
+  public void framesStreamPricesAndMisses() throws Exception {
+    MvcResult result = mvc.perform(
+        post("/services/price/frames")
+            .content(ByteBuffer.allocate(16).putLong(1L).putLong(42L).array())
+            .contentType(PriceFrames.MEDIA_TYPE)
+            .accept(PriceFrames.MEDIA_TYPE))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    ByteBuffer frames = ByteBuffer.wrap(mvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray());
+    assertEquals(22, frames.getShort());
+    assertEquals(PriceFrames.PRICE, frames.get());
+    assertEquals(1L, frames.getLong());
+    assertEquals(2311279L, frames.getLong());
+    assertEquals(2, frames.get());
+    byte[] currency = new byte[frames.get()];
+    frames.get(currency);
+    assertEquals("USD", new String(currency, StandardCharsets.US_ASCII));
+    assertEquals(9, frames.getShort());
+    assertEquals(PriceFrames.MISSING, frames.get());
+    assertEquals(42L, frames.getLong());
+    assertEquals(0, frames.remaining());
+  }
+
+  @Test
+  public void frameConvertsToRequestedCurrency() throws Exception {
+    ByteBuffer frame = ByteBuffer.wrap(mvc.perform(
+        get("/services/price/frames").param("vehicleId", "1").param("currency", "EUR")
+            .accept(PriceFrames.MEDIA_TYPE))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsByteArray());
+    frame.position(3 + 8);
+    assertEquals(2126377L, frame.getLong());
+  }
+
+}
@@ -0,0 +1,127 @@
+package com.udacity.pricing.api;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+public class ReactivePricingControllerTest {
+
+  @Autowired
+  private WebTestClient client;
+
+  @Test
+  public void getReturnsPrice() {
+    client.get().uri("/services/price?vehicleId=1")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.vehicleId").isEqualTo(1)
+        .jsonPath("$.price").isEqualTo(23112.79);
+  }
+
+  @Test
+  public void getAnswersMissWithNotFound() {
+    client.get().uri("/services/price?vehicleId=42")
+        .exchange()
+        .expectStatus().isNotFound();
+  }
+
+  @Test
+  public void getKeepsPricesInRequestedCurrencyAndRefusesUnknownSource() {
+    client.put().uri("/services/price")
+        .contentType(MediaType.APPLICATION_JSON_UTF8)
+        .syncBody("{\"vehicleId\":9002,\"currency\":\"XYZ\",\"price\":100.50}")
+        .exchange()
+        .expectStatus().isOk();
+
+    client.get().uri("/services/price?vehicleId=9002&currency=XYZ")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.currency").isEqualTo("XYZ")
+        .jsonPath("$.price").isEqualTo(100.50);
+    client.get().uri("/services/price?vehicleId=9002&currency=EUR")
+        .exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  public void batchReturnsFoundPricesAndMisses() {
+    client.post().uri("/services/price/batch")
+        .contentType(MediaType.APPLICATION_JSON_UTF8)
+        .syncBody("[1, 2, 42]")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody()
+        .jsonPath("$.prices.length()").isEqualTo(2)
+        .jsonPath("$.prices[1].vehicleId").isEqualTo(2)
+        .jsonPath("$.missing[0]").isEqualTo(42);
+  }
+
+  @Test
+  public void framesStreamPricesAndMisses() {
+    byte[] body = client.post().uri("/services/price/frames")
+        .contentType(PriceFrames.MEDIA_TYPE)
+        .accept(PriceFrames.MEDIA_TYPE)
+        .syncBody(ByteBuffer.allocate(16).putLong(2L).putLong(42L).array())
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(byte[].class)
+        .returnResult().getResponseBody();
+
+    ByteBuffer frames = ByteBuffer.wrap(body);
+    assertEquals(22, frames.getShort());
+    assertEquals(PriceFrames.PRICE, frames.get());
+    assertEquals(2L, frames.getLong());
+    frames.position(frames.position() + 8 + 1 + 1 + 3);
+    assertEquals(9, frames.getShort());
+    assertEquals(PriceFrames.MISSING, frames.get());
+    assertEquals(42L, frames.getLong());
+    assertEquals(0, frames.remaining());
+  }
+
+  @Test
+  public void frameConvertsToRequestedCurrencyAndSignalsMiss() {
+    ByteBuffer frame = ByteBuffer.wrap(client.get()
+        .uri("/services/price/frames?vehicleId=1&currency=EUR")
+        .accept(PriceFrames.MEDIA_TYPE)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(byte[].class)
+        .returnResult().getResponseBody());
+    assertEquals(22, frame.getShort());
+    assertEquals(PriceFrames.PRICE, frame.get());
+    assertEquals(1L, frame.getLong());
+    assertEquals(2126377L, frame.getLong());
+    assertEquals(2, frame.get());
+    byte[] currency = new byte[frame.get()];
+    frame.get(currency);
+    assertEquals("EUR", new String(currency, StandardCharsets.US_ASCII));
+    assertEquals(0, frame.remaining());
+
+    ByteBuffer missing = ByteBuffer.wrap(client.get()
+        .uri("/services/price/frames?vehicleId=42")
+        .accept(PriceFrames.MEDIA_TYPE)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(byte[].class)
+        .returnResult().getResponseBody());
+    assertEquals(9, missing.getShort());
+    assertEquals(PriceFrames.MISSING, missing.get());
+    assertEquals(42L, missing.getLong());
+    assertEquals(0, missing.remaining());
+  }
+
+}
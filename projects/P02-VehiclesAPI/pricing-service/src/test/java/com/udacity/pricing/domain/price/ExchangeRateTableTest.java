@@ -0,0 +1,97 @@
+package com.udacity.pricing.domain.price;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.FileSystemResource;
+
+public class ExchangeRateTableTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void convertsThroughCrossRates() throws Exception {
+    ExchangeRateTable table = table(write("{\"base\":\"USD\",\"rates\":{\"EUR\":0.92,\"GBP\":0.79}}"));
+    table.load();
+
+    Price price = new Price("USD", new BigDecimal("23112.79"), 1L);
+    assertEquals(new BigDecimal("21263.77"), table.convert(price, "EUR").getPrice());
+    assertEquals("EUR", table.convert(price, "EUR").getCurrency());
+    assertEquals(new BigDecimal("18259.11"),
+        table.convert(new Price("EUR", new BigDecimal("21263.77"), 1L), "GBP").getPrice());
+    assertSame(price, table.convert(price, "USD"));
+    assertTrue(table.supports("USD"));
+    assertFalse(table.supports("JPY"));
+  }
+
+  @Test
+  public void keepsLargeAmountsExact() throws Exception {
+    ExchangeRateTable table = table(write("{\"base\":\"USD\",\"rates\":{\"JPY\":151.2}}"));
+    table.load();
+
+    assertEquals(new BigDecimal("1512000000.00"), table.convert(
+        new Price("USD", new BigDecimal("10000000"), 1L), "JPY").getPrice());
+  }
+
+  @Test
+  public void convertsSmallCrossRatesAsBigDecimalDoes() throws Exception {
+    ExchangeRateTable table = table(write("{\"base\":\"USD\",\"rates\":{\"JPY\":151.2}}"));
+    table.load();
+
+    BigDecimal jpyPerUsd = new BigDecimal("151.2");
+    for (long cents = 350_000_000L; cents < 350_000_000L + 100_000L; cents += 7L) {
+      BigDecimal amount = BigDecimal.valueOf(cents, 2);
+      assertEquals(amount.divide(jpyPerUsd, 2, RoundingMode.HALF_UP),
+          table.convert(new Price("JPY", amount, 1L), "USD").getPrice());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknownCurrency() throws Exception {
+    ExchangeRateTable table = table(write("{\"base\":\"USD\",\"rates\":{\"EUR\":0.92}}"));
+    table.load();
+
+    table.convert(new Price("USD", BigDecimal.TEN, 1L), "JPY");
+  }
+
+  @Test
+  public void reloadsChangedRatesAndKeepsThemOnInvalidFile() throws Exception {
+    File rates = write("{\"base\":\"USD\",\"rates\":{\"EUR\":0.92}}");
+    ExchangeRateTable table = table(rates);
+    table.load();
+    Price price = new Price("USD", new BigDecimal("100"), 1L);
+
+    Files.write(rates.toPath(), "{\"base\":\"USD\",\"rates\":{\"EUR\":0.5}}"
+        .getBytes(StandardCharsets.UTF_8));
+    rates.setLastModified(rates.lastModified() + 2_000);
+    table.reload();
+    assertEquals(new BigDecimal("50.00"), table.convert(price, "EUR").getPrice());
+
+    Files.write(rates.toPath(), "{\"base\":".getBytes(StandardCharsets.UTF_8));
+    rates.setLastModified(rates.lastModified() + 2_000);
+    table.reload();
+    assertEquals(new BigDecimal("50.00"), table.convert(price, "EUR").getPrice());
+  }
+
+  private File write(String rates) throws Exception {
+    File file = folder.newFile();
+    Files.write(file.toPath(), rates.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private ExchangeRateTable table(File rates) {
+    return new ExchangeRateTable(new ObjectMapper(), new FileSystemResource(rates));
+  }
+}
@@ -0,0 +1,109 @@
+package com.udacity.pricing.domain.price;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class InMemoryPriceHistoryRepositoryTest {
+
+  private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void findsPriceAtAnyTime() {
+    InMemoryPriceHistoryRepository repository = repository("");
+    for (int day = 0; day < 200; day++) {
+      repository.record(new Price(day < 100 ? "USD" : "EUR",
+          BigDecimal.valueOf(10_000 + day * 7 - (day % 3) * 50, 2), 1L),
+          START.plusSeconds(day * 86_400L));
+    }
+
+    PricePoint point = repository.findAt(1L, START.plusSeconds(150 * 86_400L + 3_600)).get();
+    assertEquals(START.plusSeconds(150 * 86_400L), point.getAt());
+    assertEquals("EUR", point.getCurrency());
+    assertEquals(BigDecimal.valueOf(10_000 + 150 * 7, 2), point.getPrice());
+    assertEquals("USD", repository.findAt(1L, START.plusSeconds(99 * 86_400L)).get().getCurrency());
+    assertFalse(repository.findAt(1L, START.minusSeconds(1)).isPresent());
+    assertFalse(repository.findAt(2L, START).isPresent());
+  }
+
+  @Test
+  public void findsPricesBetweenTimes() {
+    InMemoryPriceHistoryRepository repository = repository("");
+    for (int hour = 0; hour < 500; hour++) {
+      repository.record(new Price("USD", BigDecimal.valueOf(hour + 1), 1L),
+          START.plusSeconds(hour * 3_600L));
+    }
+
+    List<PricePoint> points = repository.findBetween(1L,
+        START.plusSeconds(60 * 3_600L), START.plusSeconds(140 * 3_600L));
+    assertEquals(81, points.size());
+    assertEquals(new BigDecimal("61.00"), points.get(0).getPrice());
+    assertEquals(START.plusSeconds(140 * 3_600L), points.get(80).getAt());
+  }
+
+  @Test
+  public void findsPricesSharingATimeAcrossBlocks() {
+    InMemoryPriceHistoryRepository repository = repository("");
+    for (int point = 0; point < PriceSeries.CHECKPOINT_INTERVAL; point++) {
+      repository.record(new Price("USD", BigDecimal.valueOf(point + 1), 1L),
+          START.plusMillis(point));
+    }
+    Instant last = START.plusMillis(PriceSeries.CHECKPOINT_INTERVAL - 1);
+    repository.record(new Price("USD", new BigDecimal("1000"), 1L), last);
+
+    List<PricePoint> points = repository.findBetween(1L, last, last.plusSeconds(1));
+    assertEquals(2, points.size());
+    assertEquals(BigDecimal.valueOf(PriceSeries.CHECKPOINT_INTERVAL * 100L, 2),
+        points.get(0).getPrice());
+    assertEquals(new BigDecimal("1000.00"), points.get(1).getPrice());
+    assertEquals(new BigDecimal("1000.00"), repository.findAt(1L, last).get().getPrice());
+  }
+
+  @Test
+  public void skipsUnchangedPrices() {
+    InMemoryPriceHistoryRepository repository = repository("");
+
+    assertTrue(repository.record(new Price("USD", new BigDecimal("100"), 1L), START));
+    assertFalse(repository.record(new Price("USD", new BigDecimal("100.00"), 1L),
+        START.plusSeconds(60)));
+    assertTrue(repository.record(new Price("EUR", new BigDecimal("100"), 1L),
+        START.plusSeconds(120)));
+    assertEquals(2, repository.findBetween(1L, START, START.plusSeconds(120)).size());
+  }
+
+  @Test
+  public void restoresHistoryFromSnapshot() throws Exception {
+    String snapshot = new File(folder.getRoot(), "history.bin").getPath();
+    InMemoryPriceHistoryRepository repository = repository(snapshot);
+    repository.load();
+    for (long id = 1; id <= 10; id++) {
+      for (int day = 0; day < 100; day++) {
+        repository.record(new Price("USD", BigDecimal.valueOf(id * 1_000 + day), id),
+            START.plusSeconds(day * 86_400L));
+      }
+    }
+    repository.snapshot();
+
+    InMemoryPriceHistoryRepository restored = repository(snapshot);
+    restored.load();
+
+    assertEquals(100, restored.findBetween(7L, START, START.plusSeconds(99 * 86_400L)).size());
+    assertEquals(new BigDecimal("7042.00"),
+        restored.findAt(7L, START.plusSeconds(42 * 86_400L + 1)).get().getPrice());
+  }
+
+  private InMemoryPriceHistoryRepository repository(String snapshot) {
+    return new InMemoryPriceHistoryRepository(snapshot);
+  }
+}
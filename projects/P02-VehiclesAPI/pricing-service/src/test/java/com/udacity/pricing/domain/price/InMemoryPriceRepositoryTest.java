@@ -0,0 +1,80 @@
+package com.udacity.pricing.domain.price;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.math.BigDecimal;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.ClassPathResource;
+
+public class InMemoryPriceRepositoryTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void loadsSeedPrices() throws Exception {
+    InMemoryPriceRepository repository = repository("");
+    repository.load();
+
+    assertEquals(19, repository.count());
+    assertEquals(new BigDecimal("23112.79"),
+        repository.findByVehicleId(1L).get().getPrice());
+    assertFalse(repository.findByVehicleId(0L).isPresent());
+  }
+
+  @Test
+  public void keepsEveryPriceWhenGrowing() {
+    InMemoryPriceRepository repository = repository("");
+    for (long id = 1; id <= 100_000; id++) {
+      repository.save(new Price(id % 2 == 0 ? "USD" : "EUR", BigDecimal.valueOf(id, 2), id));
+    }
+    repository.save(new Price("USD", new BigDecimal("1.005"), 42L));
+
+    assertEquals(100_000, repository.count());
+    assertEquals("EUR", repository.findByVehicleId(99_999L).get().getCurrency());
+    assertEquals(new BigDecimal("999.99"), repository.findByVehicleId(99_999L).get().getPrice());
+    assertEquals(new BigDecimal("1.01"), repository.findByVehicleId(42L).get().getPrice());
+  }
+
+  @Test
+  public void rejectsNegativeAndOversizedPrices() {
+    InMemoryPriceRepository repository = repository("");
+    repository.save(new Price("USD", new BigDecimal("92233720368547758.07"), 1L));
+    for (String amount : new String[] {"-0.01", "92233720368547758.08", "1e30"}) {
+      try {
+        repository.save(new Price("USD", new BigDecimal(amount), 2L));
+        fail("Price " + amount + " should be rejected");
+      } catch (IllegalArgumentException expected) {
+        assertFalse(repository.findByVehicleId(2L).isPresent());
+      }
+    }
+  }
+
+  @Test
+  public void restoresUpdatesFromSnapshot() throws Exception {
+    String snapshot = new File(folder.getRoot(), "prices-snapshot.json").getPath();
+    InMemoryPriceRepository repository = repository(snapshot);
+    repository.load();
+    repository.save(new Price("USD", new BigDecimal("999.99"), 1L));
+    repository.save(new Price("USD", new BigDecimal("123.45"), 500L));
+    repository.snapshot();
+
+    InMemoryPriceRepository restored = repository(snapshot);
+    restored.load();
+
+    assertEquals(20, restored.count());
+    assertEquals(new BigDecimal("999.99"), restored.findByVehicleId(1L).get().getPrice());
+    assertEquals(new BigDecimal("123.45"), restored.findByVehicleId(500L).get().getPrice());
+  }
+
+  private static InMemoryPriceRepository repository(String snapshot) {
+    return new InMemoryPriceRepository(new ObjectMapper(), new ClassPathResource("prices.json"),
+        snapshot, 16);
+  }
+}
@@ -0,0 +1,109 @@
+package com.udacity.pricing.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.pricing.domain.price.ExchangeRateTable;
+import com.udacity.pricing.domain.price.InMemoryPriceHistoryRepository;
+import com.udacity.pricing.domain.price.InMemoryPriceRepository;
+import com.udacity.pricing.domain.price.Price;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Measures a price lookup that hits or misses, through the exception-raising
+ * {@link PricingService#getPrice(Long)} and the Optional-returning
+ * {@link PricingService#findPrice(Long)}, over the seed prices, and the
+ * conversion of a found price to another currency.
+ * Not run by the build, start it from the test classpath:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath com.udacity.pricing.service.PricingServiceBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingServiceBenchmark {
+
+    @Param({"hit", "miss"})
+    private String path;
+
+    private static final BigDecimal USD_PER_BASE = BigDecimal.ONE;
+    private static final BigDecimal EUR_PER_BASE = new BigDecimal("0.92");
+
+    private Long vehicleId;
+    private PricingService pricingService;
+
+    @Setup
+    public void setup() throws IOException {
+        InMemoryPriceRepository repository = new InMemoryPriceRepository(new ObjectMapper(),
+                new ClassPathResource("prices.json"), "", 1024);
+        repository.load();
+        ExchangeRateTable exchangeRates = new ExchangeRateTable(new ObjectMapper(),
+                new ClassPathResource("fx-rates.json"));
+        exchangeRates.load();
+        pricingService = new PricingService(repository,
+                new InMemoryPriceHistoryRepository(""), exchangeRates, Duration.ofDays(90));
+        vehicleId = "hit".equals(path) ? 7L : 4242L;
+    }
+
+    @Benchmark
+    public Price getPrice() {
+        try {
+            return pricingService.getPrice(vehicleId);
+        } catch (PriceException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public Optional<Price> findPrice() {
+        return pricingService.findPrice(vehicleId);
+    }
+
+    @Benchmark
+    public Optional<Price> findPriceInEuros() {
+        return pricingService.findPrice(vehicleId)
+                .map(price -> pricingService.convert(price, "EUR"));
+    }
+
+    /**
+     * Converts as a per-request BigDecimal computation from the base rates
+     * would, the baseline of {@link #findPriceInEuros()}.
+     */
+    @Benchmark
+    public Optional<Price> findPriceInEurosWithBigDecimal() {
+        return pricingService.findPrice(vehicleId).map(price -> new Price("EUR",
+                price.getPrice().divide(USD_PER_BASE, MathContext.DECIMAL64)
+                        .multiply(EUR_PER_BASE).setScale(2, RoundingMode.HALF_UP),
+                price.getVehicleId()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PricingServiceBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
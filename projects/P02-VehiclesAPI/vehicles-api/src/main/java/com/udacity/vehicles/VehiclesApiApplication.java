@@ -1,15 +1,28 @@
 package com.udacity.vehicles;
 
+import com.udacity.vehicles.client.resilience.ResilienceProperties;
+import com.udacity.vehicles.client.resilience.ResilientWebClients;
 import com.udacity.vehicles.domain.manufacturer.Manufacturer;
 import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import javax.cache.CacheManager;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * Launches a Spring Boot application for the Vehicles API,
@@ -18,6 +31,7 @@ import org.springframework.web.reactive.function.client.WebClient;
  */
 @SpringBootApplication
 @EnableJpaAuditing
+@EnableScheduling
 public class VehiclesApiApplication {
 
     public static void main(String[] args) {
@@ -25,44 +39,90 @@ public class VehiclesApiApplication {
     }
 
     /**
-     * Initializes the car manufacturers available to the Vehicle API.
+     * Initializes the car manufacturers available to the Vehicle API,
+     * saved in a single transaction, then loads the whole catalog into
+     * the second-level cache in one query.
      * @param repository where the manufacturer information persists.
      * @return the car manufacturers to add to the related repository
      */
     @Bean
     CommandLineRunner initDatabase(ManufacturerRepository repository) {
         return args -> {
-            repository.save(new Manufacturer(100, "Audi"));
-            repository.save(new Manufacturer(101, "Chevrolet"));
-            repository.save(new Manufacturer(102, "Ford"));
-            repository.save(new Manufacturer(103, "BMW"));
-            repository.save(new Manufacturer(104, "Dodge"));
+            repository.saveAll(Arrays.asList(
+                    new Manufacturer(100, "Audi"),
+                    new Manufacturer(101, "Chevrolet"),
+                    new Manufacturer(102, "Ford"),
+                    new Manufacturer(103, "BMW"),
+                    new Manufacturer(104, "Dodge")));
+            repository.loadCatalog();
         };
     }
 
+    /**
+     * Cache manager of the Hibernate second-level cache, owned by this
+     * application context rather than shared through the JVM-wide default.
+     * @return cache manager holding the cached entities
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager() {
+        return new EhcacheCachingProvider().getCacheManager();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+
     @Bean
     public ModelMapper modelMapper() {
         return new ModelMapper();
     }
 
+    @Bean
+    @ConfigurationProperties("maps.resilience")
+    public ResilienceProperties mapsResilience() {
+        return new ResilienceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("pricing.resilience")
+    public ResilienceProperties pricingResilience() {
+        return new ResilienceProperties();
+    }
+
     /**
      * Web Client for the maps (location) API
      * @param endpoint where to communicate for the maps API
+     * @param resilience how calls to the maps API are protected
      * @return created maps endpoint
      */
     @Bean(name="maps")
-    public WebClient webClientMaps(@Value("${maps.endpoint}") String endpoint) {
-        return WebClient.create(endpoint);
+    public WebClient webClientMaps(@Value("${maps.endpoint}") String endpoint,
+            @Qualifier("mapsResilience") ResilienceProperties resilience) {
+        return ResilientWebClients.create("maps", endpoint, resilience);
     }
 
     /**
      * Web Client for the pricing API
      * @param endpoint where to communicate for the pricing API
+     * @param resilience how calls to the pricing API are protected
      * @return created pricing endpoint
      */
     @Bean(name="pricing")
-    public WebClient webClientPricing(@Value("${pricing.endpoint}") String endpoint) {
-        return WebClient.create(endpoint);
+    public WebClient webClientPricing(@Value("${pricing.endpoint}") String endpoint,
+            @Qualifier("pricingResilience") ResilienceProperties resilience) {
+        return ResilientWebClients.create("pricing", endpoint, resilience);
+    }
+
+    /**
+     * Bounded scheduler for blocking JPA calls made from reactive pipelines,
+     * sized to match the JDBC connection pool so it never queues on it.
+     * @param poolSize number of threads available for repository calls
+     * @return scheduler backed by a fixed thread pool
+     */
+    @Bean(name="jpa", destroyMethod = "dispose")
+    public Scheduler jpaScheduler(@Value("${jpa.scheduler.pool-size:10}") int poolSize) {
+        return Schedulers.fromExecutorService(Executors.newFixedThreadPool(poolSize));
     }
 
 }
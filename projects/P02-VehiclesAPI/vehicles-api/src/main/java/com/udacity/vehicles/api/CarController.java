@@ -1,19 +1,41 @@
 package com.udacity.vehicles.api;
 
-
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
-
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.service.CarChangeFeed;
+import com.udacity.vehicles.service.CarChanges;
+import com.udacity.vehicles.service.CarExportService;
+import com.udacity.vehicles.service.CarIdempotencyService;
+import com.udacity.vehicles.service.CarImportResult;
+import com.udacity.vehicles.service.CarImportService;
+import com.udacity.vehicles.service.CarLocationReport;
+import com.udacity.vehicles.service.CarPage;
+import com.udacity.vehicles.service.CarSearchCriteria;
+import com.udacity.vehicles.service.CarSearchResult;
+import com.udacity.vehicles.service.CarSearchService;
 import com.udacity.vehicles.service.CarService;
+import com.udacity.vehicles.service.CarTelemetryService;
+import com.udacity.vehicles.service.NearbyCar;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 import javax.validation.Valid;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.Resource;
 import org.springframework.hateoas.Resources;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,8 +43,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Mono;
 
 /**
  * Implements a REST-based controller for the Vehicles API.
@@ -31,50 +57,262 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/cars")
 class CarController {
 
+    static final String NDJSON_VALUE = "application/x-ndjson";
+    static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_VALUE);
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final CarService carService;
+    private final CarExportService exportService;
+    private final CarImportService importService;
+    private final CarIdempotencyService idempotencyService;
+    private final CarTelemetryService telemetryService;
+    private final CarChangeFeed changeFeed;
+    private final CarSearchService searchService;
     private final CarResourceAssembler assembler;
+    private final ObjectMapper objectMapper;
 
-    CarController(CarService carService, CarResourceAssembler assembler) {
+    CarController(CarService carService, CarExportService exportService,
+            CarImportService importService, CarIdempotencyService idempotencyService,
+            CarTelemetryService telemetryService, CarChangeFeed changeFeed,
+            CarSearchService searchService, CarResourceAssembler assembler,
+            ObjectMapper objectMapper) {
         this.carService = carService;
+        this.exportService = exportService;
+        this.importService = importService;
+        this.idempotencyService = idempotencyService;
+        this.telemetryService = telemetryService;
+        this.changeFeed = changeFeed;
+        this.searchService = searchService;
         this.assembler = assembler;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Creates a list to store any vehicles.
-     * @return list of vehicles
+     * Creates a list to store any vehicles, including their location and price.
+     * The list is paged by vehicle ID; follow the "next" and "prev" links
+     * to move between pages. A page still tagged as in If-None-Match is
+     * answered with 304 Not Modified, without gathering prices and addresses.
+     * @param after ID after which the page starts, omit for the first page
+     * @param before ID before which the page ends, used when after is omitted
+     * @param size number of vehicles per page, capped by the server
+     * @param headers headers of the request, for its conditions
+     * @return one page of vehicles
      */
     @GetMapping
-    Resources<Resource<Car>> list() {
-        List<Resource<Car>> resources = carService.list().stream().map(assembler::toResource)
-                .collect(Collectors.toList());
-        return new Resources<>(resources,
-                linkTo(methodOn(CarController.class).list()).withSelfRel());
+    Mono<ResponseEntity<Resources<Resource<Car>>>> list(@RequestParam(required = false) Long after,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader HttpHeaders headers) {
+        if (headers.getIfNoneMatch().isEmpty()) {
+            return carService.listPage(after, before, size)
+                    .map(page -> toResponse(page, after, before, size));
+        }
+        return carService.findPage(after, before, size).flatMap(page -> {
+            final String etag = CarETags.of(page);
+            if (CarETags.notModified(headers, etag, null)) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                        .<Resources<Resource<Car>>>build());
+            }
+            return carService.enrich(page.getCars())
+                    .map(cars -> toResponse(page, after, before, size));
+        });
+    }
+
+    private ResponseEntity<Resources<Resource<Car>>> toResponse(CarPage page, Long after,
+            Long before, Integer size) {
+        Resources<Resource<Car>> resources = assembler.toResources(page);
+        resources.add(assembler.pageLink(after, before, size, Link.REL_SELF));
+        return ResponseEntity.ok().eTag(CarETags.of(page)).body(resources);
+    }
+
+    /**
+     * Exports the inventory as newline-delimited JSON, one car per line,
+     * streamed while it is read from the database. Without a watermark every
+     * car is exported in ID order; with one, only the cars modified after it,
+     * oldest change first, so the "modifiedAt" and "id" of the last line are
+     * the watermark of the next incremental export. Prices and addresses are
+     * not included.
+     * @param modifiedAfter optional ISO date-time of the watermark
+     * @param afterId optional car ID of the watermark, without it every car
+     *   modified at that date-time is exported again
+     * @return the streamed cars
+     */
+    @GetMapping("/export")
+    ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime modifiedAfter,
+            @RequestParam(required = false) Long afterId) {
+        ObjectWriter writer = objectMapper.writerFor(Car.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .withRootValueSeparator((String) null);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                exportService.export(modifiedAfter, afterId, car -> {
+                    try {
+                        writer.writeValue(generator, car);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
     /**
-     * Gets information of a specific car by ID.
+     * Gets the cars saved or deleted since the last poll, oldest change first.
+     * Pass the returned cursor to the next poll; when "more" is false, the
+     * feed is drained and the poll can be repeated with a wait to be answered
+     * as soon as a car changes.
+     * @param cursor cursor returned by the previous poll
+     * @param modifiedAfter optional ISO date-time to start from on the first poll,
+     *   typically the watermark of the last export
+     * @param size maximum number of changes, capped by the server
+     * @param wait seconds to wait for a change when there is none, capped by the server
+     * @return the changes and the cursor of the next poll
+     */
+    @GetMapping("/changes")
+    Mono<CarChanges> changes(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime modifiedAfter,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Integer wait) {
+        return changeFeed.changes(cursor, modifiedAfter, size,
+                wait == null ? null : Duration.ofSeconds(wait));
+    }
+
+    /**
+     * Searches vehicles by details, with equality filters on manufacturer
+     * (code), body, fuelType and externalColor, and range filters on
+     * modelYear and mileage, e.g. "?manufacturer=101&amp;minModelYear=2015".
+     * Besides one page of vehicles in ID order, returns the number of
+     * matching vehicles for each value of the manufacturer, body, fuelType,
+     * externalColor and modelYear facets.
+     * @param criteria the filters, all optional
+     * @param after ID after which the page starts, omit for the first page
+     * @param size number of vehicles per page, capped by the server
+     * @return the matching vehicles, without price or address, and the facet counts
+     */
+    @GetMapping("/search")
+    CarSearchResult search(CarSearchCriteria criteria,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size) {
+        return searchService.search(criteria, after, size);
+    }
+
+    /**
+     * Finds the vehicles within a distance of a location, closest first.
+     * @param lat latitude of the location
+     * @param lon longitude of the location
+     * @param radiusKm largest distance in kilometers, capped by the server
+     * @param limit largest number of vehicles returned, capped by the server
+     * @return the vehicles found, with their distance, without price or address
+     */
+    @GetMapping("/nearby")
+    List<NearbyCar> nearby(@RequestParam double lat, @RequestParam double lon,
+            @RequestParam double radiusKm, @RequestParam(required = false) Integer limit) {
+        return searchService.nearby(lat, lon, radiusKm, limit);
+    }
+
+    /**
+     * Finds the vehicles closest to a location, closest first.
+     * @param lat latitude of the location
+     * @param lon longitude of the location
+     * @param k number of vehicles to find, capped by the server
+     * @return the vehicles found, with their distance, without price or address
+     */
+    @GetMapping("/nearest")
+    List<NearbyCar> nearest(@RequestParam double lat, @RequestParam double lon,
+            @RequestParam(defaultValue = "10") Integer k) {
+        return searchService.nearest(lat, lon, k);
+    }
+
+    /**
+     * Gets information of a specific car by ID. The servlet thread is
+     * released while the price and address are gathered. A conditional
+     * request first reads the version of the car only, and is answered with
+     * 304 Not Modified, without loading the car nor gathering its price and
+     * address, when the car is unchanged.
      * @param id the id number of the given vehicle
+     * @param headers headers of the request, for its conditions
      * @return all information for the requested vehicle
      */
     @GetMapping("/{id}")
-    Resource<Car> get(@PathVariable Long id) {
-        return assembler.toResource(carService.findById(id));
+    Mono<ResponseEntity<Resource<Car>>> get(@PathVariable Long id,
+            @RequestHeader HttpHeaders headers) {
+        if (!CarETags.isConditional(headers)) {
+            return findById(id);
+        }
+        return carService.findVersionAsync(id).flatMap(version -> {
+            if (CarETags.notModified(headers, CarETags.of(version.getVersion()),
+                    version.getModifiedAt())) {
+                return Mono.just(CarETags.validators(ResponseEntity.status(HttpStatus.NOT_MODIFIED),
+                        version.getVersion(), version.getModifiedAt()).<Resource<Car>>build());
+            }
+            return findById(id);
+        });
+    }
+
+    private Mono<ResponseEntity<Resource<Car>>> findById(Long id) {
+        return carService.findByIdAsync(id).map(car -> CarETags.validators(ResponseEntity.ok(),
+                car.getVersion(), car.getModifiedAt()).body(assembler.toResource(car)));
     }
 
     /**
      * Posts information to create a new vehicle in the system.
+     * A request carrying an Idempotency-Key creates the vehicle at most once:
+     * retries with the same key get the vehicle created by the first attempt.
      * @param car A new vehicle to add to the system.
+     * @param idempotencyKey optional key, the same on every retry of the request
      * @return response that the new vehicle was added to the system
      * @throws URISyntaxException if the request contains invalid fields or syntax
      */
     @PostMapping
-    ResponseEntity<?> post(@Valid @RequestBody Car car) throws URISyntaxException {
-        Resource<Car> resource = assembler.toResource(carService.save(car));
+    ResponseEntity<?> post(@Valid @RequestBody Car car,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey)
+            throws URISyntaxException {
+        Car saved = idempotencyKey == null ? carService.save(car)
+                : idempotencyService.create(idempotencyKey, car);
+        Resource<Car> resource = assembler.toResource(saved);
         return ResponseEntity.created(new URI(resource.getId().expand().getHref())).body(resource);
     }
 
     /**
-     * Updates the information of a vehicle in the system.
+     * Creates and updates vehicles in bulk, from newline-delimited JSON or a
+     * JSON array. Vehicles without an ID are created, the others updated.
+     * Rows that are invalid or cannot be written are reported and skipped,
+     * without failing the rest of the import.
+     * @param body the vehicles to import, read as a stream
+     * @return how many vehicles were created and updated, and the rejected rows
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(value = "/bulk", consumes = {NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    ResponseEntity<CarImportResult> bulk(InputStream body) throws IOException {
+        return ResponseEntity.ok(importService.importCars(body));
+    }
+
+    /**
+     * Takes the positions reported by vehicle trackers. Only the latest
+     * position of each vehicle is kept, and written to the database within
+     * "vehicles.telemetry.flush-interval-ms"; until then reads return the
+     * previous position.
+     * @param reports positions of any number of vehicles
+     * @return 202 Accepted once the reports are logged
+     */
+    @PostMapping("/telemetry")
+    ResponseEntity<Void> telemetry(@RequestBody List<CarLocationReport> reports) {
+        telemetryService.record(reports);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Updates the information of a vehicle in the system. When the body
+     * carries the "version" of the vehicle it was read at, the update is
+     * refused with 409 Conflict if the vehicle was modified since; it is
+     * refused as well when it races with another update.
      * @param id The ID number for which to update vehicle information.
      * @param car The updated information about the related vehicle.
      * @return response that the vehicle was updated in the system
@@ -82,8 +320,9 @@ class CarController {
     @PutMapping("/{id}")
     ResponseEntity<?> put(@PathVariable Long id, @Valid @RequestBody Car car) {
         car.setId(id);
-        Resource<Car> resource = assembler.toResource(carService.save(car));
-        return ResponseEntity.ok(resource);
+        Car saved = carService.save(car);
+        return CarETags.validators(ResponseEntity.ok(), saved.getVersion(), saved.getModifiedAt())
+                .body(assembler.toResource(saved));
     }
 
     /**
@@ -0,0 +1,106 @@
+package com.udacity.vehicles.api;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.service.CarPage;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Derives the validators of car responses, used to answer conditional GETs.
+ * A car is tagged with its version and dated by its modification time; a
+ * page is tagged with the IDs and versions of its cars and its cursors.
+ * Tags are weak since the price and address are gathered on every request,
+ * and may change while the stored car does not.
+ */
+final class CarETags {
+
+    private CarETags() { }
+
+    /**
+     * Tags a car by its version.
+     * @param version version of the car
+     * @return the entity tag, or null if the car has no version yet
+     */
+    static String of(Long version) {
+        return version == null ? null : "W/\"" + version + "\"";
+    }
+
+    /**
+     * Tags a page by the IDs and versions of its cars and its cursors.
+     * @param page the page of cars
+     * @return the entity tag of the page
+     */
+    static String of(CarPage page) {
+        long hash = page.getSize();
+        hash = 31 * hash + hashCode(page.getNextAfter());
+        hash = 31 * hash + hashCode(page.getPreviousBefore());
+        for (Car car : page.getCars()) {
+            hash = 31 * hash + hashCode(car.getId());
+            hash = 31 * hash + hashCode(car.getVersion());
+        }
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Tells whether a request can be answered with its own cached response.
+     * If-Modified-Since is only considered when there is no If-None-Match.
+     * @param request headers of the request
+     * @param etag current entity tag, or null
+     * @param modifiedAt current modification time, or null
+     * @return whether the request should be answered with 304 Not Modified
+     */
+    static boolean notModified(HttpHeaders request, String etag, LocalDateTime modifiedAt) {
+        final List<String> ifNoneMatch = request.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            return etag != null && ifNoneMatch.stream()
+                    .anyMatch(tag -> "*".equals(tag) || opaque(tag).equals(opaque(etag)));
+        }
+        final long ifModifiedSince = request.getIfModifiedSince();
+        return ifModifiedSince >= 0 && modifiedAt != null
+                && toEpochMilli(modifiedAt) / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * Tells whether a request carries any condition on its validators.
+     * @param request headers of the request
+     * @return whether If-None-Match or If-Modified-Since is present
+     */
+    static boolean isConditional(HttpHeaders request) {
+        return request.containsKey(HttpHeaders.IF_NONE_MATCH)
+                || request.containsKey(HttpHeaders.IF_MODIFIED_SINCE);
+    }
+
+    /**
+     * Sets the validators of a car on a response.
+     * @param response builder of the response
+     * @param version version of the car
+     * @param modifiedAt modification time of the car
+     * @return the same builder
+     */
+    static ResponseEntity.BodyBuilder validators(ResponseEntity.BodyBuilder response,
+            Long version, LocalDateTime modifiedAt) {
+        final String etag = of(version);
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        if (modifiedAt != null) {
+            response.lastModified(toEpochMilli(modifiedAt));
+        }
+        return response;
+    }
+
+    private static String opaque(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long hashCode(Long value) {
+        return value == null ? 0 : value;
+    }
+}
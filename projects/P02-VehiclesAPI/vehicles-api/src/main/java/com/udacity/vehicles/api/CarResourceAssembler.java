@@ -1,23 +1,87 @@
 package com.udacity.vehicles.api;
 
 import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.service.CarPage;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.Resource;
 import org.springframework.hateoas.ResourceAssembler;
+import org.springframework.hateoas.Resources;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.*;
 
 /**
- * Maps the CarController to the Car class using HATEOAS
+ * Maps the CarController to the Car class using HATEOAS.
+ * The links of a response are expanded from the URI of the car collection,
+ * resolved once per response, rather than built through a controller proxy
+ * for every car.
  */
 @Component
 public class CarResourceAssembler implements ResourceAssembler<Car, Resource<Car>> {
 
     @Override
     public Resource<Car> toResource(Car car) {
-        return new Resource<>(car,
-                linkTo(methodOn(CarController.class).get(car.getId())).withSelfRel(),
-                linkTo(methodOn(CarController.class).list()).withRel("cars"));
+        return toResource(car, carsLink());
+    }
+
+    /**
+     * Maps a page of cars, linking to the neighbouring pages when there are any.
+     * @param page the cars and cursors of the page
+     * @return the cars of the page, with "next" and "prev" links
+     */
+    public Resources<Resource<Car>> toResources(CarPage page) {
+        Link cars = carsLink();
+        List<Resource<Car>> resources = page.getCars().stream()
+                .map(car -> toResource(car, cars))
+                .collect(Collectors.toList());
+        Resources<Resource<Car>> result = new Resources<>(resources);
+        if (page.getNextAfter() != null) {
+            result.add(pageLink(cars, page.getNextAfter(), null, page.getSize(), "next"));
+        }
+        if (page.getPreviousBefore() != null) {
+            result.add(pageLink(cars, null, page.getPreviousBefore(), page.getSize(), "prev"));
+        }
+        return result;
+    }
+
+    /**
+     * Links to a page of the car listing.
+     * @param after ID after which the page starts, or null
+     * @param before ID before which the page ends, or null
+     * @param size number of cars per page, or null
+     * @param rel relation of the link
+     * @return link to the page
+     */
+    public Link pageLink(Long after, Long before, Integer size, String rel) {
+        return pageLink(carsLink(), after, before, size, rel);
+    }
+
+    private static Resource<Car> toResource(Car car, Link cars) {
+        return new Resource<>(car, new Link(cars.getHref() + "/" + car.getId()), cars);
+    }
+
+    private static Link pageLink(Link cars, Long after, Long before, Integer size, String rel) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(cars.getHref());
+        if (after != null) {
+            builder.queryParam("after", after);
+        }
+        if (before != null) {
+            builder.queryParam("before", before);
+        }
+        if (size != null) {
+            builder.queryParam("size", size);
+        }
+        return new Link(builder.toUriString(), rel);
+    }
 
+    /**
+     * Links to the car collection, from the current request when there is one.
+     * @return the link with the "cars" relation
+     */
+    private static Link carsLink() {
+        return linkTo(CarController.class).withRel("cars");
     }
 }
@@ -0,0 +1,153 @@
+package com.udacity.vehicles.client.maps;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caches addresses by location, so cars parked close to each other share
+ * a single entry. Coordinates are snapped to a grid of "maps.cache.precision"
+ * degrees, the least recently used entry is evicted past "maps.cache.max-size"
+ * entries, and entries expire "maps.cache.ttl" after being loaded.
+ * Concurrent misses on the same grid cell share a single load.
+ */
+@Component
+public class AddressCache implements MeterBinder {
+
+    private static final String NAME = "addresses";
+
+    private final double precision;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries;
+    private final Map<Long, Mono<Address>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public AddressCache(@Value("${maps.cache.precision:0.001}") double precision,
+            @Value("${maps.cache.max-size:10000}") int maxSize,
+            @Value("${maps.cache.ttl:PT1H}") Duration ttl) {
+        if (precision <= 0) {
+            throw new IllegalArgumentException("Precision must be positive: " + precision);
+        }
+        this.precision = precision;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > AddressCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the address of a location from the cache, or loads it on a miss.
+     * @param lat latitude of the location
+     * @param lon longitude of the location
+     * @param loader gets the address from the maps service on a miss
+     * @return the cached or freshly loaded address
+     */
+    public Mono<Address> get(double lat, double lon, Supplier<Mono<Address>> loader) {
+        final long key = key(lat, lon);
+        final Address cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return Mono.just(cached);
+        }
+        misses.increment();
+        return loading.computeIfAbsent(key, k -> loader.get()
+                .doOnNext(address -> put(k, address))
+                .doFinally(signal -> loading.remove(k))
+                .cache());
+    }
+
+    /**
+     * Number of live entries.
+     * @return current size of the cache
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tags("cache", NAME, "result", "hit")
+                .description("Address lookups served from the cache")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", NAME, "result", "miss")
+                .description("Address lookups that went to the maps service")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tags("cache", NAME)
+                .description("Addresses evicted by size or age")
+                .register(registry);
+        Gauge.builder("cache.size", this, AddressCache::size)
+                .tags("cache", NAME)
+                .register(registry);
+    }
+
+    /**
+     * Snaps a location to the cache grid, packing both cell indexes in a long.
+     * @param lat latitude of the location
+     * @param lon longitude of the location
+     * @return key shared by every location in the same grid cell
+     */
+    long key(double lat, double lon) {
+        long latCell = Math.round(lat / precision);
+        long lonCell = Math.round(lon / precision);
+        return (latCell << 32) | (lonCell & 0xFFFFFFFFL);
+    }
+
+    private Address lookup(long key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.loadedAt > ttlNanos) {
+                entries.remove(key);
+                evictions.increment();
+                return null;
+            }
+            return entry.address;
+        }
+    }
+
+    private void put(long key, Address address) {
+        synchronized (entries) {
+            entries.put(key, new Entry(address, System.nanoTime()));
+        }
+    }
+
+    private static final class Entry {
+
+        private final Address address;
+        private final long loadedAt;
+
+        private Entry(Address address, long loadedAt) {
+            this.address = address;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
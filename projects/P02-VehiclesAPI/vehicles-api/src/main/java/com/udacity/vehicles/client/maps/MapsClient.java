@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 /**
  * Implements a class to interface with the Maps Client for location data.
@@ -18,11 +19,32 @@ public class MapsClient {
 
     private final WebClient client;
     private final ModelMapper mapper;
+    private final AddressCache cache;
 
     public MapsClient(WebClient maps,
-            ModelMapper mapper) {
+            ModelMapper mapper,
+            AddressCache cache) {
         this.client = maps;
         this.mapper = mapper;
+        this.cache = cache;
+    }
+
+    /**
+     * Gets an address from the cache or the Maps client, given latitude and longitude.
+     * @param lat latitude of the location
+     * @param lon longitude of the location
+     * @return the address of the location, or an error signal if the Maps service is down
+     */
+    public Mono<Address> lookup(double lat, double lon) {
+        return cache.get(lat, lon, () -> client
+                .get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/maps/")
+                        .queryParam("lat", lat)
+                        .queryParam("lon", lon)
+                        .build()
+                )
+                .retrieve().bodyToMono(Address.class));
     }
 
     /**
@@ -33,15 +55,7 @@ public class MapsClient {
      */
     public Location getAddress(Location location) {
         try {
-            Address address = client
-                    .get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/maps/")
-                            .queryParam("lat", location.getLat())
-                            .queryParam("lon", location.getLon())
-                            .build()
-                    )
-                    .retrieve().bodyToMono(Address.class).block();
+            Address address = lookup(location.getLat(), location.getLon()).block();
 
             mapper.map(Objects.requireNonNull(address), location);
 
@@ -0,0 +1,182 @@
+package com.udacity.vehicles.client.prices;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Caches vehicle prices with stale-while-revalidate semantics. Up to
+ * "pricing.cache.soft-ttl" after loading, a price is served as is. Up to
+ * "pricing.cache.hard-ttl", the stale price is still served right away while
+ * a single background request refreshes it, so callers never wait on the
+ * pricing service and an outage only makes prices a bit older. Past the hard
+ * TTL the entry is evicted and the next lookup waits for a fresh price.
+ * Beyond "pricing.cache.max-size" entries, the least recently used is evicted.
+ */
+@Component
+public class PriceCache implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceCache.class);
+
+    private static final String NAME = "prices";
+
+    private final long softTtlNanos;
+    private final long hardTtlNanos;
+    private final int maxSize;
+    private final Map<Long, Entry> entries;
+    private final Map<Long, Mono<Price>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    public PriceCache(@Value("${pricing.cache.soft-ttl:PT5M}") Duration softTtl,
+            @Value("${pricing.cache.hard-ttl:PT1H}") Duration hardTtl,
+            @Value("${pricing.cache.max-size:100000}") int maxSize) {
+        if (softTtl.compareTo(hardTtl) > 0) {
+            throw new IllegalArgumentException("Soft TTL must not exceed the hard TTL");
+        }
+        this.softTtlNanos = softTtl.toNanos();
+        this.hardTtlNanos = hardTtl.toNanos();
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > PriceCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the price of a vehicle from the cache, or loads it if there is no
+     * usable entry. Stale entries are refreshed in the background.
+     * @param vehicleId ID number of the vehicle
+     * @param loader gets the price from the pricing service
+     * @return the cached or freshly loaded price
+     */
+    public Mono<Price> get(Long vehicleId, Function<Long, Mono<Price>> loader) {
+        final Entry entry = lookup(vehicleId);
+        if (entry != null) {
+            if (System.nanoTime() - entry.loadedAt < softTtlNanos) {
+                hits.increment();
+                return Mono.just(entry.price);
+            }
+            staleHits.increment();
+            refresh(vehicleId, entry, loader);
+            return Mono.just(entry.price);
+        }
+        misses.increment();
+        return load(vehicleId, loader);
+    }
+
+    /**
+     * Number of cached prices, including stale ones.
+     * @return current size of the cache
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tags("cache", NAME, "result", "hit")
+                .description("Fresh prices served from the cache")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", staleHits, LongAdder::sum)
+                .tags("cache", NAME, "result", "stale")
+                .description("Stale prices served from the cache while refreshing")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tags("cache", NAME, "result", "miss")
+                .description("Price lookups that waited on the pricing service")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .tags("cache", NAME)
+                .description("Prices evicted past the hard TTL or by size")
+                .register(registry);
+        FunctionCounter.builder("cache.refresh.failures", refreshFailures, LongAdder::sum)
+                .tags("cache", NAME)
+                .description("Background refreshes that failed, leaving the stale price")
+                .register(registry);
+        Gauge.builder("cache.size", this, PriceCache::size)
+                .tags("cache", NAME)
+                .register(registry);
+    }
+
+    private Mono<Price> load(Long vehicleId, Function<Long, Mono<Price>> loader) {
+        return loading.computeIfAbsent(vehicleId, id -> loader.apply(id)
+                .doOnNext(price -> put(id, price))
+                .doFinally(signal -> loading.remove(id))
+                .cache());
+    }
+
+    private void refresh(Long vehicleId, Entry entry, Function<Long, Mono<Price>> loader) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        loader.apply(vehicleId)
+                .doFinally(signal -> entry.refreshing.set(false))
+                .subscribe(
+                        price -> put(vehicleId, price),
+                        e -> {
+                            refreshFailures.increment();
+                            log.warn("Could not refresh price for vehicle {}, serving stale price",
+                                    vehicleId, e);
+                        });
+    }
+
+    private Entry lookup(Long vehicleId) {
+        synchronized (entries) {
+            final Entry entry = entries.get(vehicleId);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.loadedAt >= hardTtlNanos) {
+                entries.remove(vehicleId);
+                evictions.increment();
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void put(Long vehicleId, Price price) {
+        synchronized (entries) {
+            entries.put(vehicleId, new Entry(price, System.nanoTime()));
+        }
+    }
+
+    private static final class Entry {
+
+        private final Price price;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(Price price, long loadedAt) {
+            this.price = price;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
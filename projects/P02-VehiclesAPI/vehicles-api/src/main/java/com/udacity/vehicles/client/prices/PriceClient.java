@@ -1,12 +1,20 @@
 package com.udacity.vehicles.client.prices;
 
+import java.math.RoundingMode;
+import java.util.Currency;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 /**
  * Implements a class to interface with the Pricing Client for price data.
+ * When "pricing.currency" is set, every price is requested in that currency
+ * and converted by the pricing service, otherwise in the currency it is set in.
+ * When "pricing.frames.enabled" is set, prices are requested over the binary
+ * protocol of {@link PriceFrameClient} rather than as JSON.
  */
 @Component
 public class PriceClient {
@@ -14,15 +22,46 @@ public class PriceClient {
     private static final Logger log = LoggerFactory.getLogger(PriceClient.class);
 
     private final WebClient client;
+    private final PriceCache cache;
+    private final PriceFrameClient frameClient;
+    private final String currency;
+    private final boolean frames;
 
-    public PriceClient(WebClient pricing) {
+    public PriceClient(WebClient pricing, PriceCache cache, PriceFrameClient frameClient,
+            @Value("${pricing.currency:}") String currency,
+            @Value("${pricing.frames.enabled:false}") boolean frames) {
         this.client = pricing;
+        this.cache = cache;
+        this.frameClient = frameClient;
+        this.currency = currency.isEmpty() ? null : currency;
+        this.frames = frames;
+    }
+
+    /**
+     * Gets a vehicle price from the cache or the pricing client, given vehicle ID.
+     * @param vehicleId ID number of the vehicle for which to get the price
+     * @return price of the requested vehicle, in "pricing.currency" if set,
+     *   or an error signal if it has no price and none is cached, or the
+     *   service is down
+     */
+    public Mono<Price> lookup(Long vehicleId) {
+        if (frames) {
+            return cache.get(vehicleId, frameClient::lookup);
+        }
+        return cache.get(vehicleId, id -> client
+                .get()
+                .uri(uriBuilder -> {
+                    uriBuilder.path("/services/price").queryParam("vehicleId", id);
+                    if (currency != null) {
+                        uriBuilder.queryParam("currency", currency);
+                    }
+                    return uriBuilder.build();
+                })
+                .retrieve().bodyToMono(Price.class));
     }
 
     // In a real-world application we'll want to add some resilience
     // to this method with retries/CB/failover capabilities
-    // We may also want to cache the results so we don't need to
-    // do a request every time
     /**
      * Gets a vehicle price from the pricing client, given vehicle ID.
      * @param vehicleId ID number of the vehicle for which to get the price
@@ -32,20 +71,29 @@ public class PriceClient {
      */
     public String getPrice(Long vehicleId) {
         try {
-            Price price = client
-                    .get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("services/price/")
-                            .queryParam("vehicleId", vehicleId)
-                            .build()
-                    )
-                    .retrieve().bodyToMono(Price.class).block();
+            Price price = lookup(vehicleId).block();
 
-            return String.format("%s %s", price.getCurrency(), price.getPrice());
+            return String.format("%s %s", price.getCurrency(), format(price));
 
         } catch (Exception e) {
             log.error("Unexpected error retrieving price for vehicle {}", vehicleId, e);
         }
         return "(consult price)";
     }
+
+    /**
+     * Formats the amount of a price with the minor units of its currency,
+     * e.g. none for JPY, or as is for codes that are not ISO 4217 currencies.
+     */
+    private static String format(Price price) {
+        try {
+            final int digits = Currency.getInstance(price.getCurrency()).getDefaultFractionDigits();
+            if (digits >= 0) {
+                return price.getPrice().setScale(digits, RoundingMode.HALF_UP).toPlainString();
+            }
+        } catch (IllegalArgumentException e) {
+            // Not an ISO 4217 code, keep the amount as served
+        }
+        return price.getPrice().toPlainString();
+    }
 }
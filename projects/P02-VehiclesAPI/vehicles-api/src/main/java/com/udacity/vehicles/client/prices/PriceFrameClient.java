@@ -0,0 +1,99 @@
+package com.udacity.vehicles.client.prices;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gets prices from the pricing service over its binary protocol, see
+ * {@link PriceFrames}, which spares the JSON encoding and decoding of
+ * every price on both sides. Used by {@link PriceClient} when
+ * "pricing.frames.enabled" is set.
+ */
+@Component
+public class PriceFrameClient {
+
+    private final WebClient client;
+    private final String currency;
+
+    public PriceFrameClient(WebClient pricing, @Value("${pricing.currency:}") String currency) {
+        this.client = pricing;
+        this.currency = currency.isEmpty() ? null : currency;
+    }
+
+    /**
+     * Gets the price of a vehicle.
+     * @param vehicleId ID number of the vehicle for which to get the price
+     * @return price of the requested vehicle, or an error signal with
+     *   {@link NoSuchElementException} if it has none
+     */
+    public Mono<Price> lookup(Long vehicleId) {
+        return client
+                .get()
+                .uri(uriBuilder -> uri(uriBuilder).queryParam("vehicleId", vehicleId).build())
+                .accept(PriceFrames.MEDIA_TYPE)
+                .retrieve().bodyToMono(byte[].class)
+                .flatMap(frame -> {
+                    final List<Price> found = new ArrayList<>(1);
+                    final PriceFrames.Reader reader = new PriceFrames.Reader();
+                    reader.read(ByteBuffer.wrap(frame), found::add, id -> { });
+                    reader.finish();
+                    return found.isEmpty()
+                            ? Mono.error(new NoSuchElementException("No price for vehicle " + vehicleId))
+                            : Mono.just(found.get(0));
+                });
+    }
+
+    /**
+     * Gets the prices of a batch of vehicles in a single request. Prices are
+     * emitted as their frames arrive, in request order, and vehicles without
+     * a price are left out.
+     * @param vehicleIds ID numbers of the vehicles for which to get the price
+     * @return prices of the vehicles that have one
+     */
+    public Flux<Price> lookupAll(Collection<Long> vehicleIds) {
+        if (vehicleIds.isEmpty()) {
+            return Flux.empty();
+        }
+        final ByteBuffer body = ByteBuffer.allocate(vehicleIds.size() * Long.BYTES);
+        vehicleIds.forEach(body::putLong);
+        return Flux.defer(() -> {
+            final PriceFrames.Reader reader = new PriceFrames.Reader();
+            return client
+                    .post()
+                    .uri(uriBuilder -> uri(uriBuilder).build())
+                    .contentType(PriceFrames.MEDIA_TYPE)
+                    .accept(PriceFrames.MEDIA_TYPE)
+                    .syncBody(body.array())
+                    .retrieve().bodyToFlux(DataBuffer.class)
+                    .concatMapIterable(buffer -> {
+                        final List<Price> found = new ArrayList<>();
+                        try {
+                            reader.read(buffer.asByteBuffer(), found::add, id -> { });
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                        return found;
+                    })
+                    .concatWith(Mono.<Price>fromRunnable(reader::finish));
+        });
+    }
+
+    private UriBuilder uri(UriBuilder uriBuilder) {
+        uriBuilder.path("/services/price/frames");
+        if (currency != null) {
+            uriBuilder.queryParam("currency", currency);
+        }
+        return uriBuilder;
+    }
+}
@@ -0,0 +1,113 @@
+package com.udacity.vehicles.client.prices;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import org.springframework.http.MediaType;
+
+/**
+ * Decodes the binary protocol of the pricing service: a sequence of
+ * length-prefixed frames, big-endian, one per requested vehicle:
+ * <pre>
+ * frame   = length:uint16 type:uint8 body   (length counts type and body)
+ * PRICE   = type 1, vehicleId:int64 amount:int64 scale:uint8 currencyLength:uint8 currency:ASCII
+ * MISSING = type 2, vehicleId:int64
+ * </pre>
+ * Frames of unknown types are skipped; frames too short for their type
+ * are rejected.
+ */
+final class PriceFrames {
+
+    static final MediaType MEDIA_TYPE = MediaType.valueOf("application/vnd.pricing.frames");
+
+    private static final byte PRICE = 1;
+    private static final byte MISSING = 2;
+
+    /**
+     * Length of a PRICE frame without its currency.
+     */
+    private static final int PRICE_LENGTH = 1 + Long.BYTES + Long.BYTES + 1 + 1;
+    private static final int MISSING_LENGTH = 1 + Long.BYTES;
+
+    private PriceFrames() {
+    }
+
+    /**
+     * Reads the frames of one response, as it arrives in buffers that may
+     * split frames anywhere. Not thread-safe.
+     */
+    static final class Reader {
+
+        private ByteBuffer pending = ByteBuffer.allocate(0);
+
+        /**
+         * Reads every frame completed by a buffer, keeping a trailing partial
+         * frame until the next one.
+         * @param chunk the next bytes of the response, consumed entirely
+         * @param found receives the prices read
+         * @param missing receives the IDs of the vehicles without a price
+         * @throws IllegalStateException if a frame is too short for its type
+         */
+        void read(ByteBuffer chunk, Consumer<Price> found, LongConsumer missing) {
+            ByteBuffer in = chunk;
+            if (pending.hasRemaining()) {
+                in = ByteBuffer.allocate(pending.remaining() + chunk.remaining());
+                in.put(pending).put(chunk).flip();
+            }
+            while (in.remaining() >= Short.BYTES) {
+                final int length = Short.toUnsignedInt(in.getShort(in.position()));
+                if (in.remaining() < Short.BYTES + length) {
+                    break;
+                }
+                in.position(in.position() + Short.BYTES);
+                final int end = in.position() + length;
+                final byte type = in.get();
+                if (type == PRICE) {
+                    found.accept(readPrice(in, length, end));
+                } else if (type == MISSING) {
+                    checkLength(length, MISSING_LENGTH, type);
+                    missing.accept(in.getLong());
+                }
+                in.position(end);
+            }
+            pending = ByteBuffer.allocate(in.remaining());
+            pending.put(in).flip();
+        }
+
+        /**
+         * Checks that the response did not end within a frame.
+         * @throws IllegalStateException if it did
+         */
+        void finish() {
+            if (pending.hasRemaining()) {
+                throw new IllegalStateException("Price frames truncated after "
+                        + pending.remaining() + " bytes");
+            }
+        }
+
+        private static Price readPrice(ByteBuffer in, int length, int end) {
+            checkLength(length, PRICE_LENGTH, PRICE);
+            final Price price = new Price();
+            price.setVehicleId(in.getLong());
+            final long amount = in.getLong();
+            price.setPrice(BigDecimal.valueOf(amount, Byte.toUnsignedInt(in.get())));
+            final byte[] currency = new byte[Byte.toUnsignedInt(in.get())];
+            if (currency.length > end - in.position()) {
+                throw new IllegalStateException("Price frame of " + length
+                        + " bytes too short for a currency of " + currency.length);
+            }
+            in.get(currency);
+            price.setCurrency(new String(currency, StandardCharsets.US_ASCII));
+            return price;
+        }
+
+        private static void checkLength(int length, int minimum, byte type) {
+            if (length < minimum) {
+                throw new IllegalStateException("Price frame of type " + type + " has "
+                        + length + " bytes, at least " + minimum + " expected");
+            }
+        }
+    }
+}
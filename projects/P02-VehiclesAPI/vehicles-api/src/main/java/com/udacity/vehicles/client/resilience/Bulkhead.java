@@ -0,0 +1,32 @@
+package com.udacity.vehicles.client.resilience;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps the number of concurrent calls to a downstream service, so a slow
+ * service can only tie up a bounded share of the resources of this one.
+ */
+class Bulkhead {
+
+    private final Semaphore permits;
+
+    Bulkhead(int maxConcurrentCalls) {
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    /**
+     * Takes a permit for a call, without waiting.
+     * @return whether the call may proceed
+     */
+    boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    void release() {
+        permits.release();
+    }
+
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+}
@@ -0,0 +1,129 @@
+package com.udacity.vehicles.client.resilience;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Stops calling a downstream service once too many of its recent calls
+ * failed. The outcomes of the last "window-size" calls are kept; when at
+ * least "minimum-calls" of them are known and the failure rate reaches the
+ * threshold, the breaker opens and rejects every call. After "open-duration"
+ * it lets up to "half-open-probes" calls through: if they all succeed the
+ * breaker closes again, the first failure opens it for another period.
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final boolean[] failures;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int calls;
+    private int failed;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    CircuitBreaker(ResilienceProperties.CircuitBreaker properties, LongSupplier clock) {
+        this.failures = new boolean[properties.getWindowSize()];
+        this.minimumCalls = Math.min(properties.getMinimumCalls(), failures.length);
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.openNanos = properties.getOpenDuration().toNanos();
+        this.halfOpenProbes = properties.getHalfOpenProbes();
+        this.clock = clock;
+    }
+
+    /**
+     * Asks whether a call may be sent. Every permitted call must be followed
+     * by exactly one of {@link #onSuccess()}, {@link #onFailure()} or
+     * {@link #onAbandoned()}.
+     * @return whether the call may proceed
+     */
+    synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= halfOpenProbes) {
+                return false;
+            }
+            probesStarted++;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++probesSucceeded >= halfOpenProbes) {
+                close();
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (calls >= minimumCalls && failed * 100 >= failureRateThreshold * calls) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * Releases the permission of a call cancelled before it had an outcome.
+     */
+    synchronized void onAbandoned() {
+        if (state == State.HALF_OPEN && probesStarted > probesSucceeded) {
+            probesStarted--;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (calls == failures.length) {
+            if (failures[next]) {
+                failed--;
+            }
+        } else {
+            calls++;
+        }
+        failures[next] = failure;
+        if (failure) {
+            failed++;
+        }
+        next = (next + 1) % failures.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        calls = 0;
+        failed = 0;
+    }
+}
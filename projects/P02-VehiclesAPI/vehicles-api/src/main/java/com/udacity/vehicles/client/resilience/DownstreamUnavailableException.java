@@ -0,0 +1,12 @@
+package com.udacity.vehicles.client.resilience;
+
+/**
+ * Signals that a call to a downstream service was rejected without being
+ * sent, because its circuit breaker is open or its bulkhead is full.
+ */
+public class DownstreamUnavailableException extends RuntimeException {
+
+    public DownstreamUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,51 @@
+package com.udacity.vehicles.client.resilience;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recent successful calls to a downstream
+ * service, to estimate a percentile of its response time.
+ */
+class LatencyTracker {
+
+    /**
+     * How many new samples are recorded before the percentile is computed again.
+     */
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final long[] samples;
+    private final double percentile;
+    private int next;
+    private int count;
+    private int sinceComputed;
+    private long cachedNanos = -1;
+
+    LatencyTracker(int windowSize, double percentile) {
+        this.samples = new long[windowSize];
+        this.percentile = percentile;
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        sinceComputed++;
+    }
+
+    /**
+     * Estimates the percentile of the recorded latencies.
+     * @return the latency in nanoseconds, or -1 until the window is full
+     */
+    synchronized long percentileNanos() {
+        if (count < samples.length) {
+            return -1;
+        }
+        if (cachedNanos < 0 || sinceComputed >= RECOMPUTE_EVERY) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            cachedNanos = sorted[(int) Math.min(count - 1, Math.ceil(percentile * count) - 1)];
+            sinceComputed = 0;
+        }
+        return cachedNanos;
+    }
+}
@@ -0,0 +1,107 @@
+package com.udacity.vehicles.client.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * Protects the calls of a web client to a downstream service. A call is
+ * rejected with {@link DownstreamUnavailableException} when the bulkhead is
+ * full or the circuit breaker is open, and fails if no response arrives
+ * within the timeout. Timeouts, errors and 5xx responses count as failures
+ * for the circuit breaker. When hedging is enabled, a GET still unanswered
+ * after the configured percentile of recent latencies is sent a second
+ * time, and the first response wins.
+ */
+public class ResilienceFilter implements ExchangeFilterFunction {
+
+    private final String name;
+    private final Duration timeout;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final LatencyTracker latencies;
+    private final boolean hedge;
+    private final long minHedgeDelayNanos;
+    private final LongSupplier clock;
+
+    public ResilienceFilter(String name, ResilienceProperties properties) {
+        this(name, properties, System::nanoTime);
+    }
+
+    ResilienceFilter(String name, ResilienceProperties properties, LongSupplier clock) {
+        this.name = name;
+        this.timeout = properties.getTimeout();
+        this.bulkhead = new Bulkhead(properties.getMaxConcurrentCalls());
+        this.circuitBreaker = new CircuitBreaker(properties.getCircuitBreaker(), clock);
+        this.latencies = new LatencyTracker(properties.getHedge().getWindowSize(),
+                properties.getHedge().getPercentile());
+        this.hedge = properties.getHedge().isEnabled();
+        this.minHedgeDelayNanos = properties.getHedge().getMinDelay().toNanos();
+        this.clock = clock;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> {
+            if (!bulkhead.tryAcquire()) {
+                return Mono.error(new DownstreamUnavailableException(
+                        name + " has too many calls in flight"));
+            }
+            if (!circuitBreaker.tryAcquirePermission()) {
+                bulkhead.release();
+                return Mono.error(new DownstreamUnavailableException(
+                        name + " circuit breaker is open"));
+            }
+
+            final long start = clock.getAsLong();
+            final AtomicBoolean settled = new AtomicBoolean();
+            return send(request, next)
+                    .timeout(timeout)
+                    .doOnNext(response -> {
+                        if (settled.compareAndSet(false, true)) {
+                            if (response.statusCode().is5xxServerError()) {
+                                circuitBreaker.onFailure();
+                            } else {
+                                circuitBreaker.onSuccess();
+                                latencies.record(clock.getAsLong() - start);
+                            }
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (settled.compareAndSet(false, true)) {
+                            circuitBreaker.onFailure();
+                        }
+                    })
+                    .doFinally(signal -> {
+                        if (settled.compareAndSet(false, true)) {
+                            circuitBreaker.onAbandoned();
+                        }
+                        bulkhead.release();
+                    });
+        });
+    }
+
+    CircuitBreaker.State circuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private Mono<ClientResponse> send(ClientRequest request, ExchangeFunction next) {
+        final Mono<ClientResponse> primary = next.exchange(request);
+        if (!hedge || request.method() != HttpMethod.GET) {
+            return primary;
+        }
+        final long percentileNanos = latencies.percentileNanos();
+        if (percentileNanos < 0) {
+            return primary;
+        }
+        final Duration delay = Duration.ofNanos(Math.max(percentileNanos, minHedgeDelayNanos));
+        return Mono.first(primary,
+                Mono.delay(delay).then(Mono.defer(() -> next.exchange(request))));
+    }
+}
@@ -0,0 +1,205 @@
+package com.udacity.vehicles.client.resilience;
+
+import java.time.Duration;
+
+/**
+ * Declares how calls to a downstream service are protected: connection pool
+ * and timeouts, concurrency bulkhead, circuit breaker and hedged requests.
+ */
+public class ResilienceProperties {
+
+    /**
+     * Maximum time to wait for the response headers of a call.
+     */
+    private Duration timeout = Duration.ofSeconds(2);
+
+    /**
+     * Maximum time to establish a connection.
+     */
+    private Duration connectTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Size of the connection pool.
+     */
+    private int maxConnections = 50;
+
+    /**
+     * Maximum number of calls in flight, further calls are rejected.
+     */
+    private int maxConcurrentCalls = 100;
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Hedge hedge = new Hedge();
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public Hedge getHedge() {
+        return hedge;
+    }
+
+    public void setHedge(Hedge hedge) {
+        this.hedge = hedge;
+    }
+
+    public static class CircuitBreaker {
+
+        /**
+         * Number of recent calls whose outcome is kept.
+         */
+        private int windowSize = 20;
+
+        /**
+         * Number of known outcomes needed before the breaker may open.
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * Percentage of failed calls that opens the breaker.
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * How long the breaker rejects calls before probing again.
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        /**
+         * Number of calls let through to probe the service once the open duration is over.
+         */
+        private int halfOpenProbes = 3;
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public int getHalfOpenProbes() {
+            return halfOpenProbes;
+        }
+
+        public void setHalfOpenProbes(int halfOpenProbes) {
+            this.halfOpenProbes = halfOpenProbes;
+        }
+    }
+
+    public static class Hedge {
+
+        /**
+         * Whether a second GET is sent when the first one is slower than usual.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Percentile of the recent latencies after which the second request is sent.
+         */
+        private double percentile = 0.95;
+
+        /**
+         * Number of recent latencies the percentile is computed from.
+         */
+        private int windowSize = 200;
+
+        /**
+         * Shortest delay before the second request, whatever the percentile.
+         */
+        private Duration minDelay = Duration.ofMillis(20);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.udacity.vehicles.client.resilience;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Creates web clients for downstream services, each with its own
+ * connection pool and {@link ResilienceFilter}.
+ */
+public final class ResilientWebClients {
+
+    private ResilientWebClients() {
+    }
+
+    /**
+     * Creates a web client protected according to the given properties.
+     * @param name name of the downstream service, used for the pool and errors
+     * @param endpoint base URL of the downstream service
+     * @param properties pool, timeout, bulkhead, circuit breaker and hedging settings
+     * @return the created web client
+     */
+    public static WebClient create(String name, String endpoint, ResilienceProperties properties) {
+        HttpClient httpClient = HttpClient
+                .create(ConnectionProvider.fixed(name, properties.getMaxConnections(),
+                        properties.getTimeout().toMillis()))
+                .tcpConfiguration(tcp -> tcp.option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                        (int) properties.getConnectTimeout().toMillis()));
+
+        return WebClient.builder()
+                .baseUrl(endpoint)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(new ResilienceFilter(name, properties))
+                .build();
+    }
+}
@@ -0,0 +1,39 @@
+package com.udacity.vehicles.config;
+
+import java.util.concurrent.ExecutorService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatConnectorCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs Tomcat's request threads as virtual threads when
+ * "vehicles.execution.mode" is "virtual": Tomcat starts a virtual thread per
+ * request instead of taking one of its "server.tomcat.max-threads" pooled
+ * threads. This only matters for handlers that block the request thread,
+ * which are the ones calling the repository directly: creating, updating,
+ * deleting, importing, exporting and searching cars. Those wait on the JDBC
+ * pool, so the mode lets more of them queue for a connection without holding
+ * an OS thread each, but does not make them faster. Reading cars is not
+ * affected: those handlers return a Mono at once, and the work runs on the
+ * "jpa" scheduler and the web clients' event loops in either mode.
+ * Concurrency is bounded by "server.tomcat.max-connections" instead of the
+ * thread pool. Needs Java 21 or later: startup fails on older JVMs rather
+ * than silently serving on the thread pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "vehicles.execution.mode", havingValue = "virtual")
+public class VirtualThreadConfig {
+
+    @Bean(name = "requestExecutor", destroyMethod = "shutdown")
+    public ExecutorService requestExecutor() {
+        return VirtualThreads.newPerTaskExecutor("http-virtual-");
+    }
+
+    @Bean
+    public TomcatConnectorCustomizer virtualThreadConnector(
+            @Qualifier("requestExecutor") ExecutorService requestExecutor) {
+        return connector -> connector.getProtocolHandler().setExecutor(requestExecutor);
+    }
+}
@@ -0,0 +1,52 @@
+package com.udacity.vehicles.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates virtual threads when the running JVM has them (Java 21 and later).
+ * The application is built for Java 11, so they are reached by reflection.
+ */
+final class VirtualThreads {
+
+    private static final int FIRST_FEATURE_RELEASE = 21;
+
+    private VirtualThreads() { }
+
+    /**
+     * Tells whether the running JVM supports virtual threads.
+     * @return true from Java 21 on
+     */
+    static boolean isAvailable() {
+        return Runtime.version().feature() >= FIRST_FEATURE_RELEASE;
+    }
+
+    /**
+     * Creates an executor starting a new virtual thread for every task.
+     * @param prefix prefix of the thread names, followed by a counter
+     * @return the executor, to shut down when no longer used
+     * @throws IllegalStateException if the running JVM has no virtual threads
+     */
+    static ExecutorService newPerTaskExecutor(String prefix) {
+        if (!isAvailable()) {
+            throw new IllegalStateException("Virtual threads need Java " + FIRST_FEATURE_RELEASE
+                    + " or later, running on " + Runtime.version());
+        }
+        try {
+            final Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Object named = builderType.getMethod("name", String.class, long.class)
+                    .invoke(builder, prefix, 0L);
+            final ThreadFactory factory =
+                    (ThreadFactory) builderType.getMethod("factory").invoke(named);
+            return (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+                | InvocationTargetException e) {
+            throw new IllegalStateException("Cannot create virtual threads", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.udacity.vehicles.domain;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Encodes locations as geohashes: strings naming cells of a grid that gets
+ * finer with every character, so nearby locations share a prefix and a
+ * prefix search on an indexed column finds every location in a cell.
+ */
+public final class GeoHash {
+
+    /**
+     * Length of the geohash stored for each car, cells of about 5 m.
+     */
+    public static final int PRECISION = 9;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private GeoHash() {
+    }
+
+    /**
+     * Encodes a location.
+     * @param lat latitude of the location
+     * @param lon longitude of the location
+     * @param precision number of characters of the geohash
+     * @return geohash of the cell holding the location
+     */
+    public static String encode(double lat, double lon, int precision) {
+        double minLat = -90;
+        double maxLat = 90;
+        double minLon = -180;
+        double maxLon = 180;
+        final char[] hash = new char[precision];
+        boolean even = true;
+        for (int i = 0; i < precision; i++) {
+            int cell = 0;
+            for (int bit = 0; bit < 5; bit++) {
+                cell <<= 1;
+                if (even) {
+                    final double mid = (minLon + maxLon) / 2;
+                    if (lon >= mid) {
+                        cell |= 1;
+                        minLon = mid;
+                    } else {
+                        maxLon = mid;
+                    }
+                } else {
+                    final double mid = (minLat + maxLat) / 2;
+                    if (lat >= mid) {
+                        cell |= 1;
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                even = !even;
+            }
+            hash[i] = BASE32[cell];
+        }
+        return new String(hash);
+    }
+
+    /**
+     * Gets the height of the cells of a given precision.
+     * @param precision number of characters of the geohash
+     * @return height of a cell in degrees of latitude
+     */
+    public static double cellHeight(int precision) {
+        return 180 / Math.pow(2, precision * 5 / 2);
+    }
+
+    /**
+     * Gets the width of the cells of a given precision.
+     * @param precision number of characters of the geohash
+     * @return width of a cell in degrees of longitude
+     */
+    public static double cellWidth(int precision) {
+        return 360 / Math.pow(2, (precision * 5 + 1) / 2);
+    }
+
+    /**
+     * Gets the geohash prefixes of the cells covering a box around a location:
+     * the cell of the location and its eight neighbours, at the finest
+     * precision whose cells are at least as large as the box half-sizes.
+     * @param lat latitude of the center of the box
+     * @param lon longitude of the center of the box
+     * @param latDelta half-height of the box in degrees
+     * @param lonDelta half-width of the box in degrees
+     * @return the covering prefixes; a single empty prefix if the box is too
+     *   large for any cell, meaning every location must be checked
+     */
+    public static Set<String> covering(double lat, double lon, double latDelta, double lonDelta) {
+        int precision = PRECISION;
+        while (precision > 0
+                && (cellHeight(precision) < latDelta || cellWidth(precision) < lonDelta)) {
+            precision--;
+        }
+        final Set<String> prefixes = new LinkedHashSet<>();
+        if (precision == 0) {
+            prefixes.add("");
+            return prefixes;
+        }
+        final double height = cellHeight(precision);
+        final double width = cellWidth(precision);
+        for (int dy = -1; dy <= 1; dy++) {
+            final double cellLat = Math.max(-90, Math.min(Math.nextDown(90.0), lat + dy * height));
+            for (int dx = -1; dx <= 1; dx++) {
+                prefixes.add(encode(cellLat, wrapLongitude(lon + dx * width), precision));
+            }
+        }
+        return prefixes;
+    }
+
+    private static double wrapLongitude(double lon) {
+        if (lon < -180) {
+            return lon + 360;
+        }
+        if (lon >= 180) {
+            return lon - 360;
+        }
+        return lon;
+    }
+}
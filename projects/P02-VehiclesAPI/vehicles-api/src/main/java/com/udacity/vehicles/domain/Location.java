@@ -13,6 +13,11 @@ import javax.validation.constraints.NotNull;
 @Embeddable
 public class Location {
 
+    /**
+     * Mean radius of the Earth.
+     */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
     @NotNull
     private Double lat;
 
@@ -78,4 +83,21 @@ public class Location {
     public void setZip(String zip) {
         this.zip = zip;
     }
+
+    /**
+     * Computes the great-circle distance between two locations.
+     * @param lat1 latitude of the first location
+     * @param lon1 longitude of the first location
+     * @param lat2 latitude of the second location
+     * @param lon2 longitude of the second location
+     * @return distance in kilometers
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        final double dLat = Math.toRadians(lat2 - lat1);
+        final double dLon = Math.toRadians(lon2 - lon1);
+        final double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
 }
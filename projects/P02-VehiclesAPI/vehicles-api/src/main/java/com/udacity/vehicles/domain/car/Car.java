@@ -1,16 +1,26 @@
 package com.udacity.vehicles.domain.car;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.GeoHash;
 import com.udacity.vehicles.domain.Location;
 import java.time.LocalDateTime;
+import javax.persistence.Column;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import javax.persistence.Transient;
+import javax.persistence.Version;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.springframework.data.annotation.CreatedDate;
@@ -22,10 +32,24 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
  */
 @Entity
 @EntityListeners(AuditingEntityListener.class)
+@Table(indexes = {
+        @Index(name = "idx_car_modified_at", columnList = "modifiedAt, id"),
+        @Index(name = "idx_car_geohash", columnList = "geohash"),
+        @Index(name = "idx_car_manufacturer", columnList = "manufacturer_code"),
+        @Index(name = "idx_car_model_year", columnList = "modelYear"),
+        @Index(name = "idx_car_fuel_type", columnList = "fuelType"),
+        @Index(name = "idx_car_mileage", columnList = "mileage"),
+        @Index(name = "idx_car_body", columnList = "body"),
+        @Index(name = "idx_car_external_color", columnList = "externalColor")})
 public class Car {
 
+    /**
+     * Taken from a sequence in blocks of 50, so inserts need no round trip
+     * for their ID and can be sent to the database in JDBC batches.
+     */
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_seq")
+    @SequenceGenerator(name = "car_seq", sequenceName = "car_seq", allocationSize = 50)
     private Long id;
 
     @CreatedDate
@@ -34,6 +58,12 @@ public class Car {
     @LastModifiedDate
     private LocalDateTime modifiedAt;
 
+    /**
+     * Incremented on every update, identifies the stored state of the car.
+     */
+    @Version
+    private Long version;
+
     @NotNull
     @Enumerated(EnumType.STRING)
     private Condition condition;
@@ -46,6 +76,23 @@ public class Car {
     @Embedded
     private Location location = new Location(0d, 0d);
 
+    /**
+     * Geohash of the location, kept up to date on every write so cars in
+     * an area are found with a prefix search on its index.
+     */
+    @JsonIgnore
+    @Column(length = GeoHash.PRECISION)
+    private String geohash;
+
+    /**
+     * Time of the tracker report the location was last written from, so an
+     * older report arriving late never moves the car back. Written by
+     * CarTelemetryService only, never by JPA.
+     */
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime locationReportedAt;
+
     @Transient
     private String price;
 
@@ -73,6 +120,14 @@ public class Car {
         this.modifiedAt = modifiedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Condition getCondition() {
         return condition;
     }
@@ -104,4 +159,19 @@ public class Car {
     public void setPrice(String price) {
         this.price = price;
     }
+
+    public String getGeohash() {
+        return geohash;
+    }
+
+    public LocalDateTime getLocationReportedAt() {
+        return locationReportedAt;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void updateGeohash() {
+        geohash = location == null || location.getLat() == null || location.getLon() == null
+                ? null : GeoHash.encode(location.getLat(), location.getLon(), GeoHash.PRECISION);
+    }
 }
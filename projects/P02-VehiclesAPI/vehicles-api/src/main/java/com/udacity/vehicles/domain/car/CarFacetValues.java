@@ -0,0 +1,21 @@
+package com.udacity.vehicles.domain.car;
+
+/**
+ * Projects a car on its ID and the details it can be searched by.
+ */
+public interface CarFacetValues {
+
+    Long getId();
+
+    Integer getManufacturer();
+
+    String getBody();
+
+    String getFuelType();
+
+    String getExternalColor();
+
+    Integer getModelYear();
+
+    Integer getMileage();
+}
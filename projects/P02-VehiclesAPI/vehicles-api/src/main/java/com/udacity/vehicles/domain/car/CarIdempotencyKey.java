@@ -0,0 +1,73 @@
+package com.udacity.vehicles.domain.car;
+
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Records the car created by a request carrying an idempotency key, so
+ * that retries of the request return that car instead of creating another.
+ * New keys are always inserted, never merged into a key recorded meanwhile,
+ * so that concurrent attempts with the same key fail on its primary key.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_car_idempotency_key_created_at", columnList = "createdAt"))
+public class CarIdempotencyKey implements Persistable<String> {
+
+    /**
+     * Key chosen by the client, the same on every retry of a request.
+     */
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    @Column(nullable = false)
+    private Long carId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Transient
+    private boolean loaded;
+
+    public CarIdempotencyKey() { }
+
+    public CarIdempotencyKey(String key, Long carId, LocalDateTime createdAt) {
+        this.key = key;
+        this.carId = carId;
+        this.createdAt = createdAt;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !loaded;
+    }
+
+    @PostLoad
+    void markLoaded() {
+        loaded = true;
+    }
+
+    public Long getCarId() {
+        return carId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
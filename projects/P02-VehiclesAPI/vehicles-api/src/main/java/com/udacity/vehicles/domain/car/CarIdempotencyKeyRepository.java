@@ -0,0 +1,23 @@
+package com.udacity.vehicles.domain.car;
+
+import java.time.LocalDateTime;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CarIdempotencyKeyRepository extends JpaRepository<CarIdempotencyKey, String> {
+
+    /**
+     * Forgets the keys recorded before a given time.
+     * @param before keys recorded before this time are removed
+     * @return number of keys removed
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from CarIdempotencyKey k where k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,13 @@
+package com.udacity.vehicles.domain.car;
+
+/**
+ * Projects a car on its ID and coordinates.
+ */
+public interface CarPosition {
+
+    Long getId();
+
+    Double getLat();
+
+    Double getLon();
+}
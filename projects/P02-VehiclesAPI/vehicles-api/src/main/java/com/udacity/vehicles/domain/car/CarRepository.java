@@ -1,9 +1,119 @@
 package com.udacity.vehicles.domain.car;
 
+import static org.hibernate.annotations.QueryHints.FETCH_SIZE;
+import static org.hibernate.annotations.QueryHints.READ_ONLY;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CarRepository extends JpaRepository<Car, Long> {
+public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificationExecutor<Car> {
+
+    /**
+     * Gets the first page of cars, in ascending ID order.
+     * @param pageable how many cars to get
+     * @return the cars with the lowest IDs
+     */
+    List<Car> findAllByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Gets the page of cars following a keyset cursor, in ascending ID order.
+     * Uses the primary key index, so every page costs the same.
+     * @param id ID after which the page starts
+     * @param pageable how many cars to get
+     * @return the cars with the lowest IDs greater than the cursor
+     */
+    List<Car> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Gets the page of cars preceding a keyset cursor, in descending ID order.
+     * @param id ID before which the page ends
+     * @param pageable how many cars to get
+     * @return the cars with the highest IDs less than the cursor
+     */
+    List<Car> findByIdLessThanOrderByIdDesc(Long id, Pageable pageable);
+
+    /**
+     * Streams every car in ascending ID order through a forward-only cursor.
+     * Must be consumed and closed inside a transaction.
+     * @return stream over all cars
+     */
+    @QueryHints({@QueryHint(name = FETCH_SIZE, value = "500"),
+            @QueryHint(name = READ_ONLY, value = "true")})
+    @Query("select c from Car c order by c.id")
+    Stream<Car> streamAll();
+
+    /**
+     * Streams the cars modified after a (modifiedAt, id) watermark, oldest
+     * change first, so the last car read carries the watermark of the next
+     * incremental export. Cars modified at the same time as the watermark
+     * are told apart by their ID. Uses the index on modifiedAt and id.
+     * Must be consumed and closed inside a transaction.
+     * @param at time of the watermark
+     * @param id car ID of the watermark, to order cars modified at the same time
+     * @return stream over the modified cars
+     */
+    @QueryHints({@QueryHint(name = FETCH_SIZE, value = "500"),
+            @QueryHint(name = READ_ONLY, value = "true")})
+    @Query("select c from Car c where c.modifiedAt > :at or (c.modifiedAt = :at and c.id > :id)"
+            + " order by c.modifiedAt, c.id")
+    Stream<Car> streamModifiedAfter(@Param("at") LocalDateTime at, @Param("id") Long id);
+
+    /**
+     * Gets the cars modified after a (modifiedAt, id) cursor, oldest change first.
+     * Uses the index on modifiedAt and id.
+     * @param at time of the cursor
+     * @param id car ID of the cursor, to order cars modified at the same time
+     * @param until cars modified after this time are left out
+     * @param pageable how many cars to get
+     * @return the cars modified after the cursor and up to the given time
+     */
+    @Query("select c from Car c where (c.modifiedAt > :at or (c.modifiedAt = :at and c.id > :id))"
+            + " and c.modifiedAt <= :until order by c.modifiedAt, c.id")
+    List<Car> findModifiedAfter(@Param("at") LocalDateTime at, @Param("id") Long id,
+            @Param("until") LocalDateTime until, Pageable pageable);
+
+    /**
+     * Gets the version of a car, without loading the car.
+     * @param id ID of the car
+     * @return the version of the car, or empty if non-existent
+     */
+    @Query("select c.id as id, c.version as version, c.modifiedAt as modifiedAt"
+            + " from Car c where c.id = :id")
+    Optional<CarVersion> findVersionById(@Param("id") Long id);
+
+    /**
+     * Gets the cars whose geohash starts with a prefix, that is the cars in
+     * a geohash cell. Uses the index on the geohash.
+     * @param prefix geohash of the cell
+     * @return the cars in the cell
+     */
+    List<Car> findByGeohashStartingWith(String prefix);
+
+    /**
+     * Gets the ID and coordinates of every car, without loading the cars.
+     * @return the position of every car
+     */
+    @Query("select c.id as id, c.location.lat as lat, c.location.lon as lon from Car c")
+    List<CarPosition> findAllPositions();
 
+    /**
+     * Gets the ID and searchable details of every car, without loading the cars.
+     * @return the searchable details of every car
+     */
+    @Query("select c.id as id, c.details.manufacturer.code as manufacturer,"
+            + " c.details.body as body, c.details.fuelType as fuelType,"
+            + " c.details.externalColor as externalColor, c.details.modelYear as modelYear,"
+            + " c.details.mileage as mileage from Car c")
+    List<CarFacetValues> findAllFacetValues();
 }
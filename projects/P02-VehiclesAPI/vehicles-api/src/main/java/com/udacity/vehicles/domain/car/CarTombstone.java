@@ -0,0 +1,40 @@
+package com.udacity.vehicles.domain.car;
+
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Records that a car was deleted, so the change feed can report it.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_car_tombstone_deleted_at", columnList = "deletedAt, id"))
+public class CarTombstone {
+
+    /**
+     * ID of the deleted car.
+     */
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+
+    public CarTombstone() { }
+
+    public CarTombstone(Long id, LocalDateTime deletedAt) {
+        this.id = id;
+        this.deletedAt = deletedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+}
@@ -0,0 +1,39 @@
+package com.udacity.vehicles.domain.car;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CarTombstoneRepository extends JpaRepository<CarTombstone, Long> {
+
+    /**
+     * Gets the deletions following a (deletedAt, id) cursor, oldest first.
+     * @param at time of the cursor
+     * @param id car ID of the cursor, to order deletions made at the same time
+     * @param until deletions made after this time are left out
+     * @param pageable how many deletions to get
+     * @return the deletions after the cursor and up to the given time
+     */
+    @Query("select t from CarTombstone t"
+            + " where (t.deletedAt > :at or (t.deletedAt = :at and t.id > :id))"
+            + " and t.deletedAt <= :until order by t.deletedAt, t.id")
+    List<CarTombstone> findDeletedAfter(@Param("at") LocalDateTime at, @Param("id") Long id,
+            @Param("until") LocalDateTime until, Pageable pageable);
+
+    /**
+     * Forgets the deletions made before a given time.
+     * @param before deletions made before this time are removed
+     * @return number of tombstones removed
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from CarTombstone t where t.deletedAt < :before")
+    int deleteDeletedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,15 @@
+package com.udacity.vehicles.domain.car;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projects a car on its ID, version and modification time.
+ */
+public interface CarVersion {
+
+    Long getId();
+
+    Long getVersion();
+
+    LocalDateTime getModifiedAt();
+}
@@ -5,6 +5,8 @@ import javax.persistence.Embeddable;
 import javax.persistence.ManyToOne;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 /**
  * Declares the additional detail variables for each Car object,
@@ -19,8 +21,12 @@ public class Details {
     @NotBlank
     private String model;
 
+    /**
+     * Resolved through the second-level cache rather than joined.
+     */
     @NotNull
     @ManyToOne
+    @Fetch(FetchMode.SELECT)
     private Manufacturer manufacturer;
 
     private Integer numberOfDoors;
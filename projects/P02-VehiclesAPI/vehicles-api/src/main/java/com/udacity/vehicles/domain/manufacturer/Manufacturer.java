@@ -1,14 +1,28 @@
 package com.udacity.vehicles.domain.manufacturer;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 
 /**
  * Declares class to hold car manufacturer information.
+ * Manufacturers are immutable reference data, kept in the second-level
+ * cache so that cars are read without selecting their manufacturer.
+ * Manufacturers missing from the cache are loaded in batches.
  */
 @Entity
+@Immutable
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = Manufacturer.CACHE_REGION)
+@BatchSize(size = 100)
 public class Manufacturer {
 
+    public static final String CACHE_REGION = "manufacturers";
+
     @Id
     private Integer code;
     private String name;
@@ -1,9 +1,23 @@
 package com.udacity.vehicles.domain.manufacturer;
 
+import static org.hibernate.annotations.QueryHints.FETCH_SIZE;
+
+import java.util.List;
+import javax.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ManufacturerRepository extends JpaRepository<Manufacturer, Integer> {
 
+    /**
+     * Gets every manufacturer in a single query, which also puts them in
+     * the second-level cache.
+     * @return the whole manufacturer catalog
+     */
+    @QueryHints(@QueryHint(name = FETCH_SIZE, value = "1000"))
+    @Query("select m from Manufacturer m")
+    List<Manufacturer> loadCatalog();
 }
@@ -0,0 +1,62 @@
+package com.udacity.vehicles.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.udacity.vehicles.domain.car.Car;
+import java.time.LocalDateTime;
+
+/**
+ * Describes one change of the fleet: a car that was created or updated,
+ * or a car that was deleted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CarChange {
+
+    public enum Type {
+        SAVED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Long id;
+    private final LocalDateTime at;
+    private final Car car;
+
+    private CarChange(Type type, Long id, LocalDateTime at, Car car) {
+        this.type = type;
+        this.id = id;
+        this.at = at;
+        this.car = car;
+    }
+
+    static CarChange saved(Car car) {
+        return new CarChange(Type.SAVED, car.getId(), car.getModifiedAt(), car);
+    }
+
+    static CarChange deleted(Long id, LocalDateTime at) {
+        return new CarChange(Type.DELETED, id, at, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the time of the change.
+     * @return when the car was last modified, or when it was deleted
+     */
+    public LocalDateTime getAt() {
+        return at;
+    }
+
+    /**
+     * Gets the car as it is now, without price or address.
+     * @return the saved car, or null if it was deleted
+     */
+    public Car getCar() {
+        return car;
+    }
+}
@@ -0,0 +1,248 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.car.CarTombstone;
+import com.udacity.vehicles.domain.car.CarTombstoneRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Feeds the changes of the fleet to clients that keep a copy of it, so they
+ * sync incrementally instead of reading every car again. Saved cars are found
+ * through their "modifiedAt" audit column, deleted cars through the tombstones
+ * written by {@link #recordDeletion(Long)}; both are merged in (time, ID) order
+ * and paged with an opaque cursor.
+ * <p>
+ * Changes younger than "vehicles.changes.settle-time" are held back, so a
+ * transaction committing late cannot slip behind a cursor already handed out.
+ * Tombstones are kept for "vehicles.changes.tombstone-retention"; older
+ * cursors are refused and the client must export the fleet again.
+ */
+@Service
+public class CarChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(CarChangeFeed.class);
+
+    private static final Position BEGINNING = new Position(LocalDateTime.of(1970, 1, 1, 0, 0), 0L);
+
+    private final CarRepository carRepository;
+    private final CarTombstoneRepository tombstoneRepository;
+    private final Scheduler jpaScheduler;
+    private final int maxSize;
+    private final Duration settleTime;
+    private final Duration maxWait;
+    private final Duration tombstoneRetention;
+    private final AtomicReference<MonoProcessor<Void>> nextChange =
+            new AtomicReference<>(MonoProcessor.create());
+
+    public CarChangeFeed(CarRepository carRepository,
+            CarTombstoneRepository tombstoneRepository,
+            @Qualifier("jpa") Scheduler jpaScheduler,
+            @Value("${vehicles.changes.max-size:500}") int maxSize,
+            @Value("${vehicles.changes.settle-time:PT1S}") Duration settleTime,
+            @Value("${vehicles.changes.max-wait:PT25S}") Duration maxWait,
+            @Value("${vehicles.changes.tombstone-retention:P30D}") Duration tombstoneRetention) {
+        this.carRepository = carRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.jpaScheduler = jpaScheduler;
+        this.maxSize = maxSize;
+        this.settleTime = settleTime;
+        this.maxWait = maxWait;
+        this.tombstoneRetention = tombstoneRetention;
+    }
+
+    /**
+     * Gets the changes following a cursor, oldest first. When there are none
+     * and a wait is given, the request is held until a car is saved or deleted,
+     * or the wait is over.
+     * @param cursor cursor returned by the previous poll, or null
+     * @param modifiedAfter start of the feed when there is no cursor yet, or null
+     *   to start from the beginning
+     * @param size requested number of changes, capped at "vehicles.changes.max-size"
+     * @param wait how long to wait for a change, capped at "vehicles.changes.max-wait";
+     *   null to return right away
+     * @return the changes, possibly none, and the cursor of the next poll
+     * @throws InvalidCursorException if the cursor cannot be read
+     * @throws CursorExpiredException if the cursor is older than the tombstones kept
+     */
+    public Mono<CarChanges> changes(String cursor, LocalDateTime modifiedAfter,
+            Integer size, Duration wait) {
+        final Position from;
+        if (cursor != null) {
+            from = Position.parse(cursor);
+        } else if (modifiedAfter != null) {
+            from = new Position(modifiedAfter, Long.MAX_VALUE);
+        } else {
+            from = BEGINNING;
+        }
+        if (from != BEGINNING
+                && from.at.isBefore(LocalDateTime.now().minus(tombstoneRetention))) {
+            throw new CursorExpiredException(
+                    "Deletions before " + from.at + " are no longer tracked");
+        }
+        final int limit = Math.max(1, Math.min(size == null ? maxSize : size, maxSize));
+        final Duration timeout = wait == null || wait.isNegative() ? Duration.ZERO
+                : wait.compareTo(maxWait) > 0 ? maxWait : wait;
+
+        return Mono.defer(() -> {
+            // Taken before reading, so a change committed meanwhile still wakes us up.
+            final Mono<Void> changed = nextChange.get();
+            return load(from, limit).flatMap(changes -> {
+                if (!changes.getChanges().isEmpty() || timeout.isZero()) {
+                    return Mono.just(changes);
+                }
+                return changed.then(Mono.delay(settleTime).then())
+                        .timeout(timeout, Mono.empty())
+                        .then(load(from, limit));
+            });
+        });
+    }
+
+    /**
+     * Wakes up the clients waiting for a change. Called once a car is saved.
+     */
+    public void recordChange() {
+        notifyAfterCommit();
+    }
+
+    /**
+     * Writes the tombstone of a deleted car, in the transaction deleting it,
+     * and wakes up the clients waiting for a change once it commits.
+     * @param id ID of the deleted car
+     */
+    public void recordDeletion(Long id) {
+        tombstoneRepository.save(new CarTombstone(id, LocalDateTime.now()));
+        notifyAfterCommit();
+    }
+
+    /**
+     * Removes the tombstones older than "vehicles.changes.tombstone-retention".
+     */
+    @Scheduled(fixedDelayString = "${vehicles.changes.purge-interval-ms:3600000}")
+    public void purgeTombstones() {
+        int purged = tombstoneRepository.deleteDeletedBefore(
+                LocalDateTime.now().minus(tombstoneRetention));
+        if (purged > 0) {
+            log.info("Purged {} car tombstones", purged);
+        }
+    }
+
+    private Mono<CarChanges> load(Position from, int limit) {
+        return Mono.fromCallable(() -> read(from, limit)).subscribeOn(jpaScheduler);
+    }
+
+    private CarChanges read(Position from, int limit) {
+        final LocalDateTime until = LocalDateTime.now().minus(settleTime);
+        final Pageable oneMore = PageRequest.of(0, limit + 1);
+        final List<Car> cars = carRepository.findModifiedAfter(from.at, from.id, until, oneMore);
+        final List<CarTombstone> tombstones =
+                tombstoneRepository.findDeletedAfter(from.at, from.id, until, oneMore);
+
+        final List<CarChange> changes = new ArrayList<>(Math.min(limit, cars.size() + tombstones.size()));
+        int c = 0;
+        int t = 0;
+        while (changes.size() < limit && (c < cars.size() || t < tombstones.size())) {
+            if (t == tombstones.size() || (c < cars.size()
+                    && Position.of(cars.get(c)).compareTo(Position.of(tombstones.get(t))) < 0)) {
+                changes.add(CarChange.saved(cars.get(c++)));
+            } else {
+                final CarTombstone tombstone = tombstones.get(t++);
+                changes.add(CarChange.deleted(tombstone.getId(), tombstone.getDeletedAt()));
+            }
+        }
+        final boolean more = c < cars.size() || t < tombstones.size();
+
+        Position next;
+        if (more) {
+            final CarChange last = changes.get(changes.size() - 1);
+            next = new Position(last.getAt(), last.getId());
+        } else {
+            // Every change up to "until" was read, later polls can start from there.
+            next = new Position(until, Long.MAX_VALUE);
+            if (next.compareTo(from) < 0) {
+                next = from;
+            }
+        }
+        return new CarChanges(changes, next.toString(), more);
+    }
+
+    private void notifyAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronizationAdapter() {
+                        @Override
+                        public void afterCommit() {
+                            nextChange.getAndSet(MonoProcessor.create()).onComplete();
+                        }
+                    });
+        } else {
+            nextChange.getAndSet(MonoProcessor.create()).onComplete();
+        }
+    }
+
+    /**
+     * Position in the change feed: the time of a change, and the car ID to
+     * order changes made at the same time.
+     */
+    static final class Position implements Comparable<Position> {
+
+        private static final char SEPARATOR = '_';
+
+        private final LocalDateTime at;
+        private final long id;
+
+        Position(LocalDateTime at, long id) {
+            this.at = at;
+            this.id = id;
+        }
+
+        static Position of(Car car) {
+            return new Position(car.getModifiedAt(), car.getId());
+        }
+
+        static Position of(CarTombstone tombstone) {
+            return new Position(tombstone.getDeletedAt(), tombstone.getId());
+        }
+
+        static Position parse(String cursor) {
+            final int separator = cursor.lastIndexOf(SEPARATOR);
+            try {
+                return new Position(
+                        LocalDateTime.parse(cursor.substring(0, Math.max(separator, 0))),
+                        Long.parseLong(cursor.substring(separator + 1)));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+        }
+
+        @Override
+        public int compareTo(Position other) {
+            final int byTime = at.compareTo(other.at);
+            return byTime != 0 ? byTime : Long.compare(id, other.id);
+        }
+
+        @Override
+        public String toString() {
+            return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(at) + SEPARATOR + id;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.udacity.vehicles.service;
+
+import java.util.List;
+
+/**
+ * Holds the changes of the fleet that follow a cursor, oldest first,
+ * along with the cursor to poll from next.
+ */
+public class CarChanges {
+
+    private final List<CarChange> changes;
+    private final String cursor;
+    private final boolean more;
+
+    public CarChanges(List<CarChange> changes, String cursor, boolean more) {
+        this.changes = changes;
+        this.cursor = cursor;
+        this.more = more;
+    }
+
+    public List<CarChange> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Gets the cursor to pass on the next poll.
+     * @return opaque position in the change feed
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Tells whether more changes are already waiting after this batch.
+     * @return true if the next poll should be made right away
+     */
+    public boolean isMore() {
+        return more;
+    }
+}
@@ -0,0 +1,16 @@
+package com.udacity.vehicles.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.CONFLICT, reason = "Car was modified concurrently")
+public class CarConflictException extends RuntimeException {
+
+    public CarConflictException(String message) {
+        super(message);
+    }
+
+    public CarConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,18 @@
+package com.udacity.vehicles.service;
+
+/**
+ * Published when a car is deleted, so in-memory indexes of the fleet
+ * can follow. Delivered once the deletion is committed.
+ */
+public class CarDeletedEvent {
+
+    private final Long id;
+
+    public CarDeletedEvent(Long id) {
+        this.id = id;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,53 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads the whole inventory, or the part of it changed since a watermark,
+ * one car at a time. Cars are detached as soon as they are handed over, so
+ * memory stays constant however many cars are exported.
+ */
+@Service
+public class CarExportService {
+
+    private final CarRepository repository;
+    private final EntityManager entityManager;
+
+    public CarExportService(CarRepository repository, EntityManager entityManager) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Hands every car to a consumer, in ascending ID order, or when a
+     * watermark is given, the cars modified after it, oldest change first.
+     * The watermark is the modifiedAt and ID of the last car of the previous
+     * export; without an ID, every car modified at that time is exported again.
+     * Prices and addresses are not looked up.
+     * @param modifiedAfter time of the watermark of an incremental export, or null for all cars
+     * @param afterId car ID of the watermark, or null
+     * @param consumer receives each car in turn
+     * @return number of cars exported
+     */
+    @Transactional(readOnly = true)
+    public long export(LocalDateTime modifiedAfter, Long afterId, Consumer<Car> consumer) {
+        long count = 0;
+        try (Stream<Car> cars = modifiedAfter == null
+                ? repository.streamAll()
+                : repository.streamModifiedAfter(modifiedAfter, afterId == null ? 0L : afterId)) {
+            for (Car car : (Iterable<Car>) cars::iterator) {
+                consumer.accept(car);
+                entityManager.detach(car);
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,274 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarFacetValues;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.car.Details;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps a bitmap index of the searchable details of every car in memory.
+ * Each car gets a dense ordinal, and each value of each facet a bitmap of
+ * the ordinals of the cars having it, so filters are bitmap intersections
+ * and facet counts are intersection cardinalities. Loaded at startup and
+ * kept in sync through {@link CarSavedEvent} and {@link CarDeletedEvent}.
+ */
+@Component
+@ConditionalOnProperty(name = "vehicles.facets.in-memory", matchIfMissing = true)
+public class CarFacetIndex {
+
+    static final String MANUFACTURER = "manufacturer";
+    static final String BODY = "body";
+    static final String FUEL_TYPE = "fuelType";
+    static final String EXTERNAL_COLOR = "externalColor";
+    static final String MODEL_YEAR = "modelYear";
+
+    /**
+     * Facets counted by every search, in the order of the values of a car.
+     */
+    static final List<String> FACETS =
+            Arrays.asList(MANUFACTURER, BODY, FUEL_TYPE, EXTERNAL_COLOR, MODEL_YEAR);
+
+    private static final Logger log = LoggerFactory.getLogger(CarFacetIndex.class);
+
+    private static final int NO_MILEAGE = Integer.MIN_VALUE;
+
+    private final CarRepository repository;
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    private final List<Map<Object, BitSet>> bitmaps = new ArrayList<>(FACETS.size());
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] ids = new long[1024];
+    private int[] mileages = new int[1024];
+    private Object[][] values = new Object[1024][];
+    private int nextOrdinal;
+
+    public CarFacetIndex(CarRepository repository) {
+        this.repository = repository;
+        FACETS.forEach(facet -> bitmaps.add(new HashMap<>()));
+    }
+
+    /**
+     * Loads the searchable details of every car.
+     */
+    @PostConstruct
+    public void load() {
+        final List<CarFacetValues> cars = repository.findAllFacetValues();
+        cars.forEach(car -> put(car.getId(), new Object[] {car.getManufacturer(), car.getBody(),
+                car.getFuelType(), car.getExternalColor(), car.getModelYear()}, car.getMileage()));
+        log.info("Indexed the details of {} cars", cars.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSaved(CarSavedEvent event) {
+        final Car car = event.getCar();
+        final Details details = car.getDetails();
+        put(car.getId(), new Object[] {
+                details.getManufacturer() == null ? null : details.getManufacturer().getCode(),
+                details.getBody(), details.getFuelType(), details.getExternalColor(),
+                details.getModelYear()}, details.getMileage());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeleted(CarDeletedEvent event) {
+        remove(event.getId());
+    }
+
+    /**
+     * Adds a car, or replaces its details if it is already indexed.
+     * @param id ID of the car
+     * @param facetValues values of the car for each of {@link #FACETS}, null if unknown
+     * @param mileage mileage of the car, or null
+     */
+    void put(long id, Object[] facetValues, Integer mileage) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal != null) {
+                unindex(ordinal);
+            } else {
+                ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.pop();
+                ensureCapacity(ordinal + 1);
+                ordinals.put(id, ordinal);
+            }
+            ids[ordinal] = id;
+            mileages[ordinal] = mileage == null ? NO_MILEAGE : mileage;
+            values[ordinal] = facetValues.clone();
+            for (int facet = 0; facet < facetValues.length; facet++) {
+                if (facetValues[facet] != null) {
+                    bitmaps.get(facet).computeIfAbsent(facetValues[facet], value -> new BitSet())
+                            .set(ordinal);
+                }
+            }
+            live.set(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            final Integer ordinal = ordinals.remove(id);
+            if (ordinal != null) {
+                unindex(ordinal);
+                live.clear(ordinal);
+                values[ordinal] = null;
+                freeOrdinals.push(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the cars passing the filters of a search, and counts them by facet value.
+     * @param criteria filters of the search
+     * @param after ID after which the page starts, or null for the first page
+     * @param size number of cars on the page
+     * @return the page of matching IDs, the total and the facet counts
+     */
+    Matches search(CarSearchCriteria criteria, Long after, int size) {
+        lock.readLock().lock();
+        try {
+            final BitSet matches = (BitSet) live.clone();
+            and(matches, MANUFACTURER, criteria.getManufacturer());
+            and(matches, BODY, criteria.getBody());
+            and(matches, FUEL_TYPE, criteria.getFuelType());
+            and(matches, EXTERNAL_COLOR, criteria.getExternalColor());
+            if (criteria.getMinModelYear() != null || criteria.getMaxModelYear() != null) {
+                final BitSet years = new BitSet();
+                bitmaps.get(FACETS.indexOf(MODEL_YEAR)).forEach((year, cars) -> {
+                    if (CarSearchCriteria.inRange((Integer) year, criteria.getMinModelYear(),
+                            criteria.getMaxModelYear())) {
+                        years.or(cars);
+                    }
+                });
+                matches.and(years);
+            }
+            if (criteria.getMinMileage() != null || criteria.getMaxMileage() != null) {
+                for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                    if (!CarSearchCriteria.inRange(mileages[i] == NO_MILEAGE ? null : mileages[i],
+                            criteria.getMinMileage(), criteria.getMaxMileage())) {
+                        matches.clear(i);
+                    }
+                }
+            }
+
+            final Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+            for (int facet = 0; facet < FACETS.size(); facet++) {
+                final Map<String, Long> counts = new TreeMap<>();
+                bitmaps.get(facet).forEach((value, cars) -> {
+                    final BitSet both = (BitSet) cars.clone();
+                    both.and(matches);
+                    final int count = both.cardinality();
+                    if (count > 0) {
+                        counts.put(String.valueOf(value), (long) count);
+                    }
+                });
+                facets.put(FACETS.get(facet), counts);
+            }
+
+            final int total = matches.cardinality();
+            final long[] page = new long[total];
+            int found = 0;
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                if (after == null || ids[i] > after) {
+                    page[found++] = ids[i];
+                }
+            }
+            Arrays.sort(page, 0, found);
+            final boolean more = found > size;
+            return new Matches(Arrays.copyOf(page, Math.min(found, size)), total,
+                    more ? page[size - 1] : null, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void and(BitSet matches, String facet, Object value) {
+        if (value != null) {
+            final BitSet cars = bitmaps.get(FACETS.indexOf(facet)).get(value);
+            if (cars == null) {
+                matches.clear();
+            } else {
+                matches.and(cars);
+            }
+        }
+    }
+
+    private void unindex(int ordinal) {
+        final Object[] previous = values[ordinal];
+        for (int facet = 0; facet < previous.length; facet++) {
+            if (previous[facet] != null) {
+                final Map<Object, BitSet> facetBitmaps = bitmaps.get(facet);
+                final BitSet cars = facetBitmaps.get(previous[facet]);
+                cars.clear(ordinal);
+                if (cars.isEmpty()) {
+                    facetBitmaps.remove(previous[facet]);
+                }
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            final int length = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, length);
+            mileages = Arrays.copyOf(mileages, length);
+            values = Arrays.copyOf(values, length);
+        }
+    }
+
+    /**
+     * The outcome of a search on the index.
+     */
+    static final class Matches {
+
+        private final long[] ids;
+        private final long total;
+        private final Long nextAfter;
+        private final Map<String, Map<String, Long>> facets;
+
+        Matches(long[] ids, long total, Long nextAfter, Map<String, Map<String, Long>> facets) {
+            this.ids = ids;
+            this.total = total;
+            this.nextAfter = nextAfter;
+            this.facets = facets;
+        }
+
+        long[] getIds() {
+            return ids;
+        }
+
+        long getTotal() {
+            return total;
+        }
+
+        Long getNextAfter() {
+            return nextAfter;
+        }
+
+        Map<String, Map<String, Long>> getFacets() {
+            return facets;
+        }
+    }
+}
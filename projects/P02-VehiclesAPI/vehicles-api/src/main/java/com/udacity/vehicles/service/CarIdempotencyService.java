@@ -0,0 +1,90 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarIdempotencyKey;
+import com.udacity.vehicles.domain.car.CarIdempotencyKeyRepository;
+import com.udacity.vehicles.domain.car.CarRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates cars at most once per idempotency key, so that clients can retry
+ * a creation without knowing whether the previous attempt succeeded. The
+ * car and its key are written in the same transaction; a retry finds the
+ * key and gets the car created first, even when both attempts run at once.
+ * Keys are kept for "vehicles.idempotency.retention".
+ */
+@Service
+public class CarIdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(CarIdempotencyService.class);
+
+    private final CarService carService;
+    private final CarRepository carRepository;
+    private final CarIdempotencyKeyRepository keyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+
+    public CarIdempotencyService(CarService carService,
+            CarRepository carRepository,
+            CarIdempotencyKeyRepository keyRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${vehicles.idempotency.retention:P1D}") Duration retention) {
+        this.carService = carService;
+        this.carRepository = carRepository;
+        this.keyRepository = keyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+    }
+
+    /**
+     * Creates a car, unless a car was already created with the same key.
+     * @param key idempotency key of the request
+     * @param car the car to create
+     * @return the created car, or the car created first with the key
+     */
+    public Car create(String key, Car car) {
+        final Optional<Car> original = findCreated(key);
+        if (original.isPresent()) {
+            return original.get();
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                final Car created = carService.save(car);
+                keyRepository.saveAndFlush(
+                        new CarIdempotencyKey(key, created.getId(), LocalDateTime.now()));
+                return created;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another attempt with the same key committed first.
+            return findCreated(key).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Removes the keys older than "vehicles.idempotency.retention".
+     */
+    @Scheduled(fixedDelayString = "${vehicles.idempotency.purge-interval-ms:3600000}")
+    public void purgeKeys() {
+        int purged = keyRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+        if (purged > 0) {
+            log.info("Purged {} car idempotency keys", purged);
+        }
+    }
+
+    private Optional<Car> findCreated(String key) {
+        return keyRepository.findById(key).map(recorded -> carRepository
+                .findById(recorded.getCarId())
+                .orElseThrow(() -> new CarNotFoundException(
+                        String.format("Car with id %s is missing", recorded.getCarId()))));
+    }
+}
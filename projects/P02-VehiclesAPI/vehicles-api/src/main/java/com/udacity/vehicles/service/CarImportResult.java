@@ -0,0 +1,82 @@
+package com.udacity.vehicles.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reports the outcome of a bulk import: how many cars were created and
+ * updated, and why the other rows were rejected.
+ */
+public class CarImportResult {
+
+    private int created;
+    private int updated;
+    private int failed;
+    private final List<RowError> errors = new ArrayList<>();
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Gets the rejected rows, up to "vehicles.import.max-errors" of them.
+     * @return the rejected rows; "failed" counts them all
+     */
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    void created(int count) {
+        created += count;
+    }
+
+    void updated(int count) {
+        updated += count;
+    }
+
+    void failed(RowError error, int maxErrors) {
+        failed++;
+        if (errors.size() < maxErrors) {
+            errors.add(error);
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class RowError {
+
+        private final int row;
+        private final Long id;
+        private final List<String> messages;
+
+        RowError(int row, Long id, List<String> messages) {
+            this.row = row;
+            this.id = id;
+            this.messages = messages;
+        }
+
+        /**
+         * Gets the position of the row in the input.
+         * @return index of the row, starting at 0
+         */
+        public int getRow() {
+            return row;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public List<String> getMessages() {
+            return messages;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.udacity.vehicles.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+import com.udacity.vehicles.service.CarImportResult.RowError;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates and updates cars in bulk. Cars are read one at a time from a JSON
+ * stream, validated, and written in chunks of "vehicles.import.chunk-size",
+ * each in its own transaction, so Hibernate sends the inserts and updates in
+ * JDBC batches. A row that cannot be read, fails validation or cannot be
+ * written is reported and skipped; the other rows are still imported.
+ */
+@Service
+public class CarImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CarImportService.class);
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final CarRepository carRepository;
+    private final ManufacturerRepository manufacturerRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final CarChangeFeed changeFeed;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public CarImportService(ObjectMapper objectMapper,
+            Validator validator,
+            CarRepository carRepository,
+            ManufacturerRepository manufacturerRepository,
+            EntityManager entityManager,
+            PlatformTransactionManager transactionManager,
+            CarChangeFeed changeFeed,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${vehicles.import.chunk-size:500}") int chunkSize,
+            @Value("${vehicles.import.max-errors:1000}") int maxErrors) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.carRepository = carRepository;
+        this.manufacturerRepository = manufacturerRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.changeFeed = changeFeed;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Imports cars from a JSON array or a stream of JSON documents, such as
+     * newline-delimited JSON. Cars without an ID are created; cars with one
+     * replace the details, location and condition of the existing car. As
+     * with {@link CarService#save(Car)}, a car carrying another version than
+     * the stored one is reported rather than overwriting it, and the version
+     * of a created car is ignored.
+     * @param in the cars to import
+     * @return how many cars were created and updated, and the rejected rows
+     * @throws IOException if the input cannot be read
+     */
+    public CarImportResult importCars(InputStream in) throws IOException {
+        final CarImportResult result = new CarImportResult();
+        final List<Row> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        try (MappingIterator<Car> cars = objectMapper.readerFor(Car.class).readValues(in)) {
+            while (true) {
+                final Car car;
+                try {
+                    if (!cars.hasNextValue()) {
+                        break;
+                    }
+                    car = cars.nextValue();
+                } catch (JsonParseException e) {
+                    // The rest of the input cannot be split into rows.
+                    result.failed(error(index, null, "Malformed JSON: " + e.getOriginalMessage()),
+                            maxErrors);
+                    break;
+                } catch (JsonMappingException e) {
+                    result.failed(error(index++, null, e.getOriginalMessage()), maxErrors);
+                    continue;
+                }
+
+                final List<String> violations = validator.validate(car).stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.toList());
+                if (violations.isEmpty()) {
+                    chunk.add(new Row(index, car));
+                } else {
+                    result.failed(new RowError(index, car.getId(), violations), maxErrors);
+                }
+                index++;
+
+                if (chunk.size() == chunkSize) {
+                    write(chunk, result);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            write(chunk, result);
+        }
+        return result;
+    }
+
+    /**
+     * Writes a chunk in one transaction. If the database rejects it, the
+     * rows are written again one by one to find out which of them failed.
+     */
+    private void write(List<Row> rows, CarImportResult result) {
+        try {
+            transactionTemplate.execute(status -> writeChunk(rows)).applyTo(result, maxErrors);
+        } catch (PersistenceException | DataAccessException | TransactionException e) {
+            log.warn("Could not write a chunk of {} cars, retrying one by one", rows.size(), e);
+            for (Row row : rows) {
+                try {
+                    transactionTemplate.execute(status -> writeChunk(Collections.singletonList(row)))
+                            .applyTo(result, maxErrors);
+                } catch (PersistenceException | DataAccessException | TransactionException rowError) {
+                    result.failed(error(row.index, row.id,
+                            NestedExceptionUtils.getMostSpecificCause(rowError).getMessage()), maxErrors);
+                }
+            }
+        }
+        changeFeed.recordChange();
+    }
+
+    private ChunkOutcome writeChunk(List<Row> rows) {
+        final ChunkOutcome outcome = new ChunkOutcome();
+        final Set<Long> ids = new HashSet<>();
+        final Set<Integer> codes = new HashSet<>();
+        for (Row row : rows) {
+            // A failed attempt may have assigned an ID to a new car.
+            row.car.setId(row.id);
+            if (row.id != null) {
+                ids.add(row.id);
+            }
+            codes.add(row.car.getDetails().getManufacturer().getCode());
+        }
+        codes.remove(null);
+        final Map<Long, Car> existing = new HashMap<>();
+        carRepository.findAllById(ids).forEach(car -> existing.put(car.getId(), car));
+        final Map<Integer, Manufacturer> manufacturers = new HashMap<>();
+        manufacturerRepository.findAllById(codes)
+                .forEach(manufacturer -> manufacturers.put(manufacturer.getCode(), manufacturer));
+
+        for (Row row : rows) {
+            final Integer code = row.car.getDetails().getManufacturer().getCode();
+            final Manufacturer manufacturer = manufacturers.get(code);
+            if (manufacturer == null) {
+                outcome.errors.add(error(row.index, row.id,
+                        "details.manufacturer: unknown manufacturer " + code));
+                continue;
+            }
+            row.car.getDetails().setManufacturer(manufacturer);
+
+            if (row.id == null) {
+                row.car.setVersion(null);
+                entityManager.persist(row.car);
+                eventPublisher.publishEvent(new CarSavedEvent(row.car));
+                outcome.created++;
+            } else {
+                final Car car = existing.get(row.id);
+                if (car == null) {
+                    outcome.errors.add(error(row.index, row.id,
+                            String.format("Car with id %s is missing", row.id)));
+                    continue;
+                }
+                if (row.car.getVersion() != null
+                        && !row.car.getVersion().equals(car.getVersion())) {
+                    outcome.errors.add(error(row.index, row.id, String.format(
+                            "Car with id %s is at version %s, not %s", row.id,
+                            car.getVersion(), row.car.getVersion())));
+                    continue;
+                }
+                car.setDetails(row.car.getDetails());
+                car.setLocation(row.car.getLocation());
+                car.setCondition(row.car.getCondition());
+                eventPublisher.publishEvent(new CarSavedEvent(car));
+                outcome.updated++;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return outcome;
+    }
+
+    private static RowError error(int index, Long id, String message) {
+        return new RowError(index, id, Collections.singletonList(Objects.toString(message)));
+    }
+
+    private static final class Row {
+
+        private final int index;
+        private final Long id;
+        private final Car car;
+
+        private Row(int index, Car car) {
+            this.index = index;
+            this.id = car.getId();
+            this.car = car;
+        }
+    }
+
+    /**
+     * Counts kept aside until the chunk commits, so a rolled back chunk
+     * is not reported twice.
+     */
+    private static final class ChunkOutcome {
+
+        private int created;
+        private int updated;
+        private final List<RowError> errors = new ArrayList<>();
+
+        private void applyTo(CarImportResult result, int maxErrors) {
+            result.created(created);
+            result.updated(updated);
+            errors.forEach(error -> result.failed(error, maxErrors));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.udacity.vehicles.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position reported by a car's tracker, as received by the telemetry endpoint.
+ */
+public class CarLocationReport {
+
+    private Long id;
+    private Double lat;
+    private Double lon;
+    private LocalDateTime reportedAt;
+
+    public CarLocationReport() {
+    }
+
+    public CarLocationReport(Long id, Double lat, Double lon, LocalDateTime reportedAt) {
+        this.id = id;
+        this.lat = lat;
+        this.lon = lon;
+        this.reportedAt = reportedAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Double getLat() {
+        return lat;
+    }
+
+    public void setLat(Double lat) {
+        this.lat = lat;
+    }
+
+    public Double getLon() {
+        return lon;
+    }
+
+    public void setLon(Double lon) {
+        this.lon = lon;
+    }
+
+    /**
+     * Time the position was taken, which orders the reports of a car;
+     * the time of receipt when the tracker does not send it.
+     * @return time of the report
+     */
+    public LocalDateTime getReportedAt() {
+        return reportedAt;
+    }
+
+    public void setReportedAt(LocalDateTime reportedAt) {
+        this.reportedAt = reportedAt;
+    }
+}
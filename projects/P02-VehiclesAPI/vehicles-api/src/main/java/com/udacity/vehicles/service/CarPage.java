@@ -0,0 +1,51 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.car.Car;
+import java.util.List;
+
+/**
+ * Holds one page of vehicles ordered by ID, along with the cursors to
+ * reach the neighbouring pages.
+ */
+public class CarPage {
+
+    private final List<Car> cars;
+    private final int size;
+    private final Long nextAfter;
+    private final Long previousBefore;
+
+    public CarPage(List<Car> cars, int size, Long nextAfter, Long previousBefore) {
+        this.cars = cars;
+        this.size = size;
+        this.nextAfter = nextAfter;
+        this.previousBefore = previousBefore;
+    }
+
+    public List<Car> getCars() {
+        return cars;
+    }
+
+    /**
+     * Gets the page size the page was requested with, after capping.
+     * @return maximum number of vehicles on the page
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the cursor of the next page.
+     * @return ID after which the next page starts, or null on the last page
+     */
+    public Long getNextAfter() {
+        return nextAfter;
+    }
+
+    /**
+     * Gets the cursor of the previous page.
+     * @return ID before which the previous page ends, or null on the first page
+     */
+    public Long getPreviousBefore() {
+        return previousBefore;
+    }
+}
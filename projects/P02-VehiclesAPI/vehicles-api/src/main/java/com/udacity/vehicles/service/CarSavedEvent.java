@@ -0,0 +1,20 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.car.Car;
+
+/**
+ * Published when a car is created or updated, so in-memory indexes
+ * of the fleet can follow. Delivered once the write is committed.
+ */
+public class CarSavedEvent {
+
+    private final Car car;
+
+    public CarSavedEvent(Car car) {
+        this.car = car;
+    }
+
+    public Car getCar() {
+        return car;
+    }
+}
@@ -0,0 +1,144 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.Details;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filters of a car search on the details of the cars. Every filter is
+ * optional; a car matches when it passes all of the given ones.
+ */
+public class CarSearchCriteria {
+
+    private Integer manufacturer;
+    private String body;
+    private String fuelType;
+    private String externalColor;
+    private Integer minModelYear;
+    private Integer maxModelYear;
+    private Integer minMileage;
+    private Integer maxMileage;
+
+    /**
+     * Gets the code of the manufacturer the cars must have.
+     * @return manufacturer code, or null for any
+     */
+    public Integer getManufacturer() {
+        return manufacturer;
+    }
+
+    public void setManufacturer(Integer manufacturer) {
+        this.manufacturer = manufacturer;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public String getFuelType() {
+        return fuelType;
+    }
+
+    public void setFuelType(String fuelType) {
+        this.fuelType = fuelType;
+    }
+
+    public String getExternalColor() {
+        return externalColor;
+    }
+
+    public void setExternalColor(String externalColor) {
+        this.externalColor = externalColor;
+    }
+
+    public Integer getMinModelYear() {
+        return minModelYear;
+    }
+
+    public void setMinModelYear(Integer minModelYear) {
+        this.minModelYear = minModelYear;
+    }
+
+    public Integer getMaxModelYear() {
+        return maxModelYear;
+    }
+
+    public void setMaxModelYear(Integer maxModelYear) {
+        this.maxModelYear = maxModelYear;
+    }
+
+    public Integer getMinMileage() {
+        return minMileage;
+    }
+
+    public void setMinMileage(Integer minMileage) {
+        this.minMileage = minMileage;
+    }
+
+    public Integer getMaxMileage() {
+        return maxMileage;
+    }
+
+    public void setMaxMileage(Integer maxMileage) {
+        this.maxMileage = maxMileage;
+    }
+
+    /**
+     * Tells whether a value passes a range filter.
+     * @param value the value, or null if unknown
+     * @param min lower bound, or null for none
+     * @param max upper bound, or null for none
+     * @return true if there is no bound, or the value is within them
+     */
+    static boolean inRange(Integer value, Integer min, Integer max) {
+        if (min == null && max == null) {
+            return true;
+        }
+        return value != null && (min == null || value >= min) && (max == null || value <= max);
+    }
+
+    /**
+     * Translates the filters to a query specification, using the indexes
+     * on the detail columns of the cars.
+     * @return the specification of the matching cars
+     */
+    Specification<Car> toSpecification() {
+        return (root, query, cb) -> {
+            final Path<Details> details = root.get("details");
+            final List<Predicate> predicates = new ArrayList<>();
+            if (manufacturer != null) {
+                predicates.add(cb.equal(details.get("manufacturer").get("code"), manufacturer));
+            }
+            if (body != null) {
+                predicates.add(cb.equal(details.get("body"), body));
+            }
+            if (fuelType != null) {
+                predicates.add(cb.equal(details.get("fuelType"), fuelType));
+            }
+            if (externalColor != null) {
+                predicates.add(cb.equal(details.get("externalColor"), externalColor));
+            }
+            if (minModelYear != null) {
+                predicates.add(cb.greaterThanOrEqualTo(details.get("modelYear"), minModelYear));
+            }
+            if (maxModelYear != null) {
+                predicates.add(cb.lessThanOrEqualTo(details.get("modelYear"), maxModelYear));
+            }
+            if (minMileage != null) {
+                predicates.add(cb.greaterThanOrEqualTo(details.get("mileage"), minMileage));
+            }
+            if (maxMileage != null) {
+                predicates.add(cb.lessThanOrEqualTo(details.get("mileage"), maxMileage));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.car.Car;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds one page of the cars matching a search, in ascending ID order,
+ * with the number of matching cars per value of each facet.
+ */
+public class CarSearchResult {
+
+    private final List<Car> cars;
+    private final long total;
+    private final Long nextAfter;
+    private final Map<String, Map<String, Long>> facets;
+
+    public CarSearchResult(List<Car> cars, long total, Long nextAfter,
+            Map<String, Map<String, Long>> facets) {
+        this.cars = cars;
+        this.total = total;
+        this.nextAfter = nextAfter;
+        this.facets = facets;
+    }
+
+    public List<Car> getCars() {
+        return cars;
+    }
+
+    /**
+     * Gets the number of cars matching the search, on every page.
+     * @return number of matching cars
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the cursor of the next page.
+     * @return ID after which the next page starts, or null on the last page
+     */
+    public Long getNextAfter() {
+        return nextAfter;
+    }
+
+    /**
+     * Gets the facet counts: for each facet, the number of matching cars
+     * per value. Cars without a value are not counted.
+     * @return counts by facet name, then by value
+     */
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+}
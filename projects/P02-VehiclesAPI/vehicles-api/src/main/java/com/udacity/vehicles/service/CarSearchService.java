@@ -0,0 +1,225 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.GeoHash;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.service.CarFacetIndex.Matches;
+import com.udacity.vehicles.service.CarSpatialIndex.Hit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+/**
+ * Searches cars by location and by details. Location searches are answered
+ * from the in-memory {@link CarSpatialIndex}, or when "vehicles.spatial.in-memory"
+ * is false, from prefix searches on the indexed geohash column of the cars.
+ * Detail searches are answered from the in-memory {@link CarFacetIndex}, or
+ * when "vehicles.facets.in-memory" is false, from queries on the indexed
+ * detail columns. Cars are returned as stored, without price or address.
+ */
+@Service
+public class CarSearchService {
+
+    private static final double KM_PER_DEGREE = Math.PI * Location.EARTH_RADIUS_KM / 180;
+    private static final double HALF_CIRCUMFERENCE_KM = Math.PI * Location.EARTH_RADIUS_KM;
+
+    private final CarRepository repository;
+    private final EntityManager entityManager;
+    private final CarSpatialIndex spatialIndex;
+    private final CarFacetIndex facetIndex;
+    private final double maxRadiusKm;
+    private final int maxResults;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public CarSearchService(CarRepository repository,
+            EntityManager entityManager,
+            ObjectProvider<CarSpatialIndex> spatialIndex,
+            ObjectProvider<CarFacetIndex> facetIndex,
+            @Value("${vehicles.spatial.max-radius-km:500}") double maxRadiusKm,
+            @Value("${vehicles.search.max-results:1000}") int maxResults,
+            @Value("${vehicles.page.default-size:20}") int defaultPageSize,
+            @Value("${vehicles.page.max-size:100}") int maxPageSize) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.spatialIndex = spatialIndex.getIfAvailable();
+        this.facetIndex = facetIndex.getIfAvailable();
+        this.maxRadiusKm = maxRadiusKm;
+        this.maxResults = maxResults;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Finds the cars passing the filters of a search, one page at a time in
+     * ascending ID order, and counts the matching cars by manufacturer, body,
+     * fuel type, color and model year.
+     * @param criteria filters of the search
+     * @param after ID after which the page starts, or null for the first page
+     * @param size number of cars per page, capped at "vehicles.page.max-size";
+     *   null for "vehicles.page.default-size"
+     * @return the page of matching cars, the number of matching cars and the facet counts
+     */
+    public CarSearchResult search(CarSearchCriteria criteria, Long after, Integer size) {
+        final int pageSize = Math.max(1, Math.min(size == null ? defaultPageSize : size,
+                maxPageSize));
+        if (facetIndex != null) {
+            final Matches matches = facetIndex.search(criteria, after, pageSize);
+            final List<Long> ids = LongStream.of(matches.getIds()).boxed()
+                    .collect(Collectors.toList());
+            final Map<Long, Car> cars = repository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Car::getId, Function.identity()));
+            return new CarSearchResult(
+                    ids.stream().map(cars::get).filter(Objects::nonNull).collect(Collectors.toList()),
+                    matches.getTotal(), matches.getNextAfter(), matches.getFacets());
+        }
+
+        final Specification<Car> matching = criteria.toSpecification();
+        final Specification<Car> page = after == null ? matching
+                : matching.and((root, query, cb) -> cb.greaterThan(root.get("id"), after));
+        // Read as a plain list, a Page would issue its own count query.
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Car> query = cb.createQuery(Car.class);
+        final Root<Car> root = query.from(Car.class);
+        query.where(page.toPredicate(root, query, cb)).orderBy(cb.asc(root.get("id")));
+        final List<Car> cars = new ArrayList<>(entityManager.createQuery(query)
+                .setMaxResults(pageSize + 1).getResultList());
+        final boolean more = cars.size() > pageSize;
+        if (more) {
+            cars.remove(pageSize);
+        }
+        final Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        for (String facet : CarFacetIndex.FACETS) {
+            facets.put(facet, countByValue(matching, facet));
+        }
+        return new CarSearchResult(cars, repository.count(matching),
+                more ? cars.get(cars.size() - 1).getId() : null, facets);
+    }
+
+    private Map<String, Long> countByValue(Specification<Car> matching, String facet) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        final Root<Car> root = query.from(Car.class);
+        final Path<?> details = root.get("details");
+        final Path<?> value = CarFacetIndex.MANUFACTURER.equals(facet)
+                ? details.get("manufacturer").get("code") : details.get(facet);
+        query.multiselect(value, cb.count(root))
+                .where(matching.toPredicate(root, query, cb))
+                .groupBy(value);
+        final Map<String, Long> counts = new TreeMap<>();
+        for (Object[] row : entityManager.createQuery(query).getResultList()) {
+            if (row[0] != null) {
+                counts.put(String.valueOf(row[0]), (Long) row[1]);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Finds the cars within a distance of a location.
+     * @param lat latitude of the location
+     * @param lon longitude of the location
+     * @param radiusKm largest distance in kilometers, up to "vehicles.spatial.max-radius-km"
+     * @param limit largest number of cars returned, up to "vehicles.search.max-results"
+     * @return the closest cars within the distance, closest first
+     */
+    public List<NearbyCar> nearby(double lat, double lon, double radiusKm, Integer limit) {
+        checkLocation(lat, lon);
+        if (!(radiusKm > 0 && radiusKm <= maxRadiusKm)) {
+            throw new InvalidSearchException("radiusKm must be in (0, " + maxRadiusKm + "]");
+        }
+        final int max = cap(limit);
+        return load(spatialIndex != null
+                ? spatialIndex.within(lat, lon, radiusKm, max)
+                : scanGeohashes(lat, lon, radiusKm, max));
+    }
+
+    /**
+     * Finds the cars closest to a location, wherever they are.
+     * @param lat latitude of the location
+     * @param lon longitude of the location
+     * @param k number of cars to find, up to "vehicles.search.max-results"
+     * @return the k closest cars, closest first
+     */
+    public List<NearbyCar> nearest(double lat, double lon, Integer k) {
+        checkLocation(lat, lon);
+        final int max = cap(k);
+        if (spatialIndex != null) {
+            return load(spatialIndex.nearest(lat, lon, max));
+        }
+        double radiusKm = 1;
+        while (true) {
+            final List<Hit> hits = scanGeohashes(lat, lon, radiusKm, max);
+            if (hits.size() >= max || radiusKm >= HALF_CIRCUMFERENCE_KM) {
+                return load(hits);
+            }
+            radiusKm = Math.min(radiusKm * 4, HALF_CIRCUMFERENCE_KM);
+        }
+    }
+
+    private List<Hit> scanGeohashes(double lat, double lon, double radiusKm, int limit) {
+        final double latDelta = radiusKm / KM_PER_DEGREE;
+        final double lonDelta = latDelta / Math.max(1e-6, Math.cos(Math.toRadians(
+                Math.min(90, Math.abs(lat) + latDelta))));
+        final List<Hit> hits = new ArrayList<>();
+        for (String prefix : GeoHash.covering(lat, lon, latDelta, lonDelta)) {
+            for (Car car : repository.findByGeohashStartingWith(prefix)) {
+                final double distance = Location.distanceKm(lat, lon,
+                        car.getLocation().getLat(), car.getLocation().getLon());
+                if (distance <= radiusKm) {
+                    hits.add(new Hit(car.getId(), distance));
+                }
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::getDistanceKm));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    private List<NearbyCar> load(List<Hit> hits) {
+        final Map<Long, Car> cars = repository.findAllById(
+                hits.stream().map(Hit::getId).collect(Collectors.toList()))
+                .stream().collect(Collectors.toMap(Car::getId, Function.identity()));
+        final List<NearbyCar> nearby = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            final Car car = cars.get(hit.getId());
+            // Missing if deleted since the search.
+            if (car != null) {
+                nearby.add(new NearbyCar(car, hit.getDistanceKm()));
+            }
+        }
+        return nearby;
+    }
+
+    private int cap(Integer limit) {
+        if (limit == null) {
+            return maxResults;
+        }
+        if (limit < 1) {
+            throw new InvalidSearchException("The number of results must be positive");
+        }
+        return Math.min(limit, maxResults);
+    }
+
+    private static void checkLocation(double lat, double lon) {
+        if (!(lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180)) {
+            throw new InvalidSearchException("lat must be in [-90, 90] and lon in [-180, 180]");
+        }
+    }
+}
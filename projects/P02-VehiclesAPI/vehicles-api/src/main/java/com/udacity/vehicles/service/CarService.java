@@ -1,15 +1,33 @@
 package com.udacity.vehicles.service;
 
 import com.udacity.vehicles.client.maps.Address;
+import com.udacity.vehicles.client.maps.MapsClient;
 import com.udacity.vehicles.client.prices.Price;
+import com.udacity.vehicles.client.prices.PriceClient;
 import com.udacity.vehicles.domain.Location;
 import com.udacity.vehicles.domain.car.Car;
 import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.car.CarVersion;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 /**
  * Implements the car service create, read, update or delete
@@ -19,16 +37,36 @@ import reactor.core.publisher.Mono;
 @Service
 public class CarService {
 
+    private static final Logger log = LoggerFactory.getLogger(CarService.class);
+
     private final CarRepository repository;
-    private final WebClient mapsWebClient;
-    private final WebClient pricingWebClient;
+    private final MapsClient mapsClient;
+    private final PriceClient priceClient;
+    private final CarChangeFeed changeFeed;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Scheduler jpaScheduler;
+    private final int enrichmentConcurrency;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
     public CarService(CarRepository repository,
-        @Qualifier("maps") WebClient mapsWebClient,
-        @Qualifier("pricing") WebClient pricingWebClient) {
+        MapsClient mapsClient,
+        PriceClient priceClient,
+        CarChangeFeed changeFeed,
+        ApplicationEventPublisher eventPublisher,
+        @Qualifier("jpa") Scheduler jpaScheduler,
+        @Value("${vehicles.enrichment.concurrency:16}") int enrichmentConcurrency,
+        @Value("${vehicles.page.default-size:20}") int defaultPageSize,
+        @Value("${vehicles.page.max-size:100}") int maxPageSize) {
         this.repository = repository;
-        this.mapsWebClient = mapsWebClient;
-        this.pricingWebClient = pricingWebClient;
+        this.mapsClient = mapsClient;
+        this.priceClient = priceClient;
+        this.changeFeed = changeFeed;
+        this.eventPublisher = eventPublisher;
+        this.jpaScheduler = jpaScheduler;
+        this.enrichmentConcurrency = enrichmentConcurrency;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     /**
@@ -40,70 +78,229 @@ public class CarService {
     }
 
     /**
-     * Gets car information by ID (or throws exception if non-existent)
+     * Gathers one page of vehicles in ascending ID order, including their
+     * location and price. Pages are addressed by keyset cursors rather than
+     * offsets, so every page costs the same wherever it is in the fleet.
+     * @param after ID after which the page starts, or null
+     * @param before ID before which the page ends, or null; ignored if after is set
+     * @param size requested number of vehicles, capped at "vehicles.page.max-size";
+     *   null for "vehicles.page.default-size"
+     * @return the requested page, enriched in one pass
+     */
+    public Mono<CarPage> listPage(Long after, Long before, Integer size) {
+        return findPage(after, before, size)
+            .flatMap(page -> enrich(page.getCars()).thenReturn(page));
+    }
+
+    /**
+     * Gathers one page of vehicles like {@link #listPage(Long, Long, Integer)},
+     * without their location and price.
+     * @param after ID after which the page starts, or null
+     * @param before ID before which the page ends, or null; ignored if after is set
+     * @param size requested number of vehicles, capped at "vehicles.page.max-size";
+     *   null for "vehicles.page.default-size"
+     * @return the requested page, not enriched
+     */
+    public Mono<CarPage> findPage(Long after, Long before, Integer size) {
+        final int pageSize = Math.max(1, Math.min(size == null ? defaultPageSize : size,
+            maxPageSize));
+        return Mono.fromCallable(() -> loadPage(after, before, pageSize))
+            .subscribeOn(jpaScheduler);
+    }
+
+    private CarPage loadPage(Long after, Long before, int size) {
+        final Pageable oneMore = PageRequest.of(0, size + 1);
+        if (after == null && before != null) {
+            final List<Car> cars = new ArrayList<>(
+                repository.findByIdLessThanOrderByIdDesc(before, oneMore));
+            final boolean first = cars.size() <= size;
+            if (!first) {
+                cars.remove(size);
+            }
+            Collections.reverse(cars);
+            return new CarPage(cars, size,
+                cars.isEmpty() ? null : cars.get(cars.size() - 1).getId(),
+                first || cars.isEmpty() ? null : cars.get(0).getId());
+        }
+
+        final List<Car> cars = new ArrayList<>(after == null
+            ? repository.findAllByOrderByIdAsc(oneMore)
+            : repository.findByIdGreaterThanOrderByIdAsc(after, oneMore));
+        final boolean last = cars.size() <= size;
+        if (!last) {
+            cars.remove(size);
+        }
+        return new CarPage(cars, size,
+            last || cars.isEmpty() ? null : cars.get(cars.size() - 1).getId(),
+            after == null || cars.isEmpty() ? null : cars.get(0).getId());
+    }
+
+    /**
+     * Gathers the price and address of a batch of vehicles. Prices are requested
+     * once per vehicle and addresses once per distinct coordinate, with at most
+     * "vehicles.enrichment.concurrency" requests in flight for each downstream.
+     * A vehicle whose price or address cannot be gathered is returned without it.
+     * @param cars the vehicles to enrich
+     * @return the same vehicles, once all downstream calls have completed
+     */
+    public Mono<List<Car>> enrich(List<Car> cars) {
+        final Mono<Map<Long, Price>> monoPrices = Flux.fromIterable(cars)
+            .flatMap(car -> fetchPrice(car.getId())
+                .map(price -> Tuples.of(car.getId(), price))
+                .onErrorResume(e -> {
+                    log.warn("Could not get price for vehicle {}", car.getId(), e);
+                    return Mono.empty();
+                }), enrichmentConcurrency)
+            .collectMap(Tuple2::getT1, Tuple2::getT2);
+
+        final Mono<Map<List<Double>, Address>> monoAddresses = Flux.fromIterable(cars)
+            .map(car -> coordinates(car.getLocation()))
+            .distinct()
+            .flatMap(coordinates -> mapsClient.lookup(coordinates.get(0), coordinates.get(1))
+                .map(address -> Tuples.of(coordinates, address))
+                .onErrorResume(e -> {
+                    log.warn("Could not get address for location {}", coordinates, e);
+                    return Mono.empty();
+                }), enrichmentConcurrency)
+            .collectMap(Tuple2::getT1, Tuple2::getT2);
+
+        return Mono.zip(monoPrices, monoAddresses).map(tuple -> {
+            final Map<Long, Price> prices = tuple.getT1();
+            final Map<List<Double>, Address> addresses = tuple.getT2();
+
+            for (Car car : cars) {
+                final Price price = prices.get(car.getId());
+                if (price != null) {
+                    car.setPrice(price.getPrice().toPlainString());
+                }
+                final Address address = addresses.get(coordinates(car.getLocation()));
+                if (address != null) {
+                    applyAddress(car.getLocation(), address);
+                }
+            }
+            return cars;
+        });
+    }
+
+    /**
+     * Gets car information by ID (or throws exception if non-existent).
+     * Blocks the calling thread until the price and address are gathered,
+     * prefer {@link #findByIdAsync(Long)} on request threads.
      * @param id the ID number of the car to gather information on
      * @return the requested car's information, including location and price
      */
     public Car findById(Long id) {
-        Car car = repository.findById(id)
-            .orElseThrow(() -> new CarNotFoundException(String.format("Car with id %s is missing", id)));
-
-        final Mono<Price> monoPrice = pricingWebClient.get()
-            .uri(uriBuilder -> uriBuilder.path("/services/price")
-                .queryParam("vehicleId", id)
-                .build()).retrieve().bodyToMono(Price.class);
-
-        final Location location = car.getLocation();
-        final Mono<Address> monoAddress = mapsWebClient.get()
-            .uri(uriBuilder -> uriBuilder.path("/maps")
-                .queryParam("lat", location.getLat())
-                .queryParam("lon", location.getLon())
-                .build())
-            .retrieve()
-            .bodyToMono(Address.class);
-
-        return Mono.zip(monoPrice, monoAddress).map(tuple -> {
-            final Price price = tuple.getT1();
-            final Address address = tuple.getT2();
-
-            location.setAddress(address.getAddress());
-            location.setCity(address.getCity());
-            location.setState(address.getState());
-            location.setZip(address.getZip());
-            car.setLocation(location);
-
-            car.setPrice(price.getPrice().toPlainString());
-            return car;
-        }).block();
+        return findByIdAsync(id).block();
     }
 
     /**
-     * Either creates or updates a vehicle, based on prior existence of car
+     * Gets car information by ID without blocking the caller. The JPA lookup
+     * runs on the bounded "jpa" scheduler, while the price and address are
+     * gathered concurrently by the non-blocking web clients.
+     * @param id the ID number of the car to gather information on
+     * @return the requested car's information, including location and price,
+     *   or an error signal with {@link CarNotFoundException} if non-existent
+     */
+    public Mono<Car> findByIdAsync(Long id) {
+        return Mono.fromCallable(() -> repository.findById(id))
+            .subscribeOn(jpaScheduler)
+            .map(car -> car.orElseThrow(
+                () -> new CarNotFoundException(String.format("Car with id %s is missing", id))))
+            .flatMap(car -> Mono.zip(fetchPrice(id), fetchAddress(car.getLocation()))
+                .map(tuple -> {
+                    final Price price = tuple.getT1();
+                    final Address address = tuple.getT2();
+
+                    applyAddress(car.getLocation(), address);
+
+                    car.setPrice(price.getPrice().toPlainString());
+                    return car;
+                }));
+    }
+
+    /**
+     * Gets the version of a car without loading it, to answer conditional
+     * requests without gathering its price and address.
+     * @param id the ID number of the car
+     * @return the version of the car, or an error signal with
+     *   {@link CarNotFoundException} if non-existent
+     */
+    public Mono<CarVersion> findVersionAsync(Long id) {
+        return Mono.fromCallable(() -> repository.findVersionById(id))
+            .subscribeOn(jpaScheduler)
+            .map(version -> version.orElseThrow(
+                () -> new CarNotFoundException(String.format("Car with id %s is missing", id))));
+    }
+
+    private Mono<Price> fetchPrice(Long id) {
+        return priceClient.lookup(id);
+    }
+
+    private Mono<Address> fetchAddress(Location location) {
+        return mapsClient.lookup(location.getLat(), location.getLon());
+    }
+
+    private static List<Double> coordinates(Location location) {
+        return Arrays.asList(location.getLat(), location.getLon());
+    }
+
+    private static void applyAddress(Location location, Address address) {
+        location.setAddress(address.getAddress());
+        location.setCity(address.getCity());
+        location.setState(address.getState());
+        location.setZip(address.getZip());
+    }
+
+    /**
+     * Either creates or updates a vehicle, based on prior existence of car.
+     * Updates are checked against the version of the stored car: an update
+     * carrying another version than the stored one, or racing with another
+     * update of the car, is refused rather than overwriting it.
      * @param car A car object, which can be either new or existing
      * @return the new/updated car is stored in the repository
+     * @throws CarConflictException if the car was modified since the given version
      */
     public Car save(Car car) {
+        final Car saved;
         if (car.getId() != null) {
-            return repository.findById(car.getId())
+            saved = repository.findById(car.getId())
                     .map(carToBeUpdated -> {
+                        if (car.getVersion() != null
+                                && !car.getVersion().equals(carToBeUpdated.getVersion())) {
+                            throw new CarConflictException(String.format(
+                                    "Car with id %s is at version %s, not %s", car.getId(),
+                                    carToBeUpdated.getVersion(), car.getVersion()));
+                        }
                         carToBeUpdated.setDetails(car.getDetails());
                         carToBeUpdated.setLocation(car.getLocation());
                         carToBeUpdated.setCondition(car.getCondition());
-                        return repository.save(carToBeUpdated);
+                        try {
+                            return repository.save(carToBeUpdated);
+                        } catch (ObjectOptimisticLockingFailureException e) {
+                            throw new CarConflictException(String.format(
+                                    "Car with id %s was modified concurrently", car.getId()), e);
+                        }
                     }).orElseThrow(CarNotFoundException::new);
+        } else {
+            car.setVersion(null);
+            saved = repository.save(car);
         }
-
-        return repository.save(car);
+        changeFeed.recordChange();
+        eventPublisher.publishEvent(new CarSavedEvent(saved));
+        return saved;
     }
 
     /**
-     * Deletes a given car by ID
+     * Deletes a given car by ID, leaving a tombstone for the change feed
      * @param id the ID number of the car to delete
      */
+    @Transactional
     public void delete(Long id) {
         final Car car = repository.findById(id)
             .orElseThrow(
                 () -> new CarNotFoundException(String.format("Car with id %s is missing", id)));
         repository.delete(car);
+        changeFeed.recordDeletion(id);
+        eventPublisher.publishEvent(new CarDeletedEvent(id));
     }
 }
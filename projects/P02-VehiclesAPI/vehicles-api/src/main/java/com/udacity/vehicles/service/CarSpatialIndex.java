@@ -0,0 +1,259 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarPosition;
+import com.udacity.vehicles.domain.car.CarRepository;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps the position of every car in memory, bucketed in a grid of
+ * "vehicles.spatial.cell-size" degrees, to answer area and nearest-car
+ * searches without touching the database. Loaded at startup and kept in
+ * sync through {@link CarSavedEvent} and {@link CarDeletedEvent}.
+ */
+@Component
+@ConditionalOnProperty(name = "vehicles.spatial.in-memory", matchIfMissing = true)
+public class CarSpatialIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CarSpatialIndex.class);
+
+    private static final double KM_PER_DEGREE = Math.PI * Location.EARTH_RADIUS_KM / 180;
+    private static final double HALF_CIRCUMFERENCE_KM = Math.PI * Location.EARTH_RADIUS_KM;
+
+    private final CarRepository repository;
+    private final double cellSize;
+    private final int latCells;
+    private final int lonCells;
+    private final Map<Long, Point> points = new HashMap<>();
+    private final Map<Long, List<Point>> cells = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public CarSpatialIndex(CarRepository repository,
+            @Value("${vehicles.spatial.cell-size:0.01}") double cellSize) {
+        if (cellSize <= 0 || cellSize > 90) {
+            throw new IllegalArgumentException("Cell size must be in (0, 90]: " + cellSize);
+        }
+        this.repository = repository;
+        this.cellSize = cellSize;
+        this.latCells = (int) Math.ceil(180 / cellSize);
+        this.lonCells = (int) Math.ceil(360 / cellSize);
+    }
+
+    /**
+     * Loads the position of every car.
+     */
+    @PostConstruct
+    public void load() {
+        final List<CarPosition> positions = repository.findAllPositions();
+        positions.forEach(position -> put(position.getId(), position.getLat(), position.getLon()));
+        log.info("Indexed the location of {} cars", positions.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSaved(CarSavedEvent event) {
+        final Car car = event.getCar();
+        put(car.getId(), car.getLocation().getLat(), car.getLocation().getLon());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeleted(CarDeletedEvent event) {
+        remove(event.getId());
+    }
+
+    /**
+     * Adds a car, or moves it if it is already indexed.
+     * @param id ID of the car
+     * @param lat latitude of the car, or null to remove it
+     * @param lon longitude of the car, or null to remove it
+     */
+    void put(Long id, Double lat, Double lon) {
+        if (lat == null || lon == null) {
+            remove(id);
+            return;
+        }
+        final Point point = new Point(id, lat, lon);
+        final long cell = cellOf(latIndex(lat), lonIndex(lon));
+        lock.writeLock().lock();
+        try {
+            final Point previous = points.put(id, point);
+            if (previous != null) {
+                removeFromCell(previous);
+            }
+            cells.computeIfAbsent(cell, key -> new ArrayList<>(4)).add(point);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            final Point previous = points.remove(id);
+            if (previous != null) {
+                removeFromCell(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return points.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the cars within a distance of a location.
+     * @param lat latitude of the location
+     * @param lon longitude of the location
+     * @param radiusKm largest distance in kilometers
+     * @param limit largest number of cars returned
+     * @return the closest cars within the distance, closest first
+     */
+    List<Hit> within(double lat, double lon, double radiusKm, int limit) {
+        final double latDelta = radiusKm / KM_PER_DEGREE;
+        final int minLat = latIndex(Math.max(-90, lat - latDelta));
+        final int maxLat = latIndex(Math.min(90, lat + latDelta));
+        final double widest = Math.min(89.999, Math.max(Math.abs(lat - latDelta),
+                Math.abs(lat + latDelta)));
+        final double lonDelta = latDelta / Math.cos(Math.toRadians(widest));
+        final int minLon;
+        final int lonSpan;
+        if (lat + latDelta >= 90 || lat - latDelta <= -90 || lonDelta >= 180) {
+            minLon = 0;
+            lonSpan = lonCells;
+        } else {
+            minLon = (int) Math.floor((lon - lonDelta + 180) / cellSize);
+            lonSpan = Math.min(lonCells,
+                    (int) Math.floor((lon + lonDelta + 180) / cellSize) - minLon + 1);
+        }
+
+        final List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if ((long) (maxLat - minLat + 1) * lonSpan > cells.size()) {
+                // Fewer occupied cells than cells in the area, check them all.
+                cells.values().forEach(cell -> collect(cell, lat, lon, radiusKm, hits));
+            } else {
+                for (int latIndex = minLat; latIndex <= maxLat; latIndex++) {
+                    for (int i = 0; i < lonSpan; i++) {
+                        final List<Point> cell = cells.get(
+                                cellOf(latIndex, Math.floorMod(minLon + i, lonCells)));
+                        if (cell != null) {
+                            collect(cell, lat, lon, radiusKm, hits);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        hits.sort(Comparator.comparingDouble(Hit::getDistanceKm));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * Finds the cars closest to a location, searching ever larger areas
+     * until enough cars are found.
+     * @param lat latitude of the location
+     * @param lon longitude of the location
+     * @param k number of cars to find
+     * @return the k closest cars, closest first
+     */
+    List<Hit> nearest(double lat, double lon, int k) {
+        double radiusKm = cellSize * KM_PER_DEGREE;
+        while (true) {
+            final List<Hit> hits = within(lat, lon, radiusKm, k);
+            if (hits.size() >= k || radiusKm >= HALF_CIRCUMFERENCE_KM) {
+                return hits;
+            }
+            radiusKm = Math.min(radiusKm * 2, HALF_CIRCUMFERENCE_KM);
+        }
+    }
+
+    private static void collect(List<Point> cell, double lat, double lon, double radiusKm,
+            List<Hit> hits) {
+        for (Point point : cell) {
+            final double distance = Location.distanceKm(lat, lon, point.lat, point.lon);
+            if (distance <= radiusKm) {
+                hits.add(new Hit(point.id, distance));
+            }
+        }
+    }
+
+    private void removeFromCell(Point point) {
+        final long cell = cellOf(latIndex(point.lat), lonIndex(point.lon));
+        final List<Point> bucket = cells.get(cell);
+        if (bucket != null) {
+            bucket.remove(point);
+            if (bucket.isEmpty()) {
+                cells.remove(cell);
+            }
+        }
+    }
+
+    private int latIndex(double lat) {
+        return Math.min(latCells - 1, (int) Math.floor((lat + 90) / cellSize));
+    }
+
+    private int lonIndex(double lon) {
+        return Math.floorMod((int) Math.floor((lon + 180) / cellSize), lonCells);
+    }
+
+    private long cellOf(int latIndex, int lonIndex) {
+        return (long) latIndex * lonCells + lonIndex;
+    }
+
+    private static final class Point {
+
+        private final long id;
+        private final double lat;
+        private final double lon;
+
+        private Point(long id, double lat, double lon) {
+            this.id = id;
+            this.lat = lat;
+            this.lon = lon;
+        }
+    }
+
+    /**
+     * A car found by a search, with its distance to the searched location.
+     */
+    static final class Hit {
+
+        private final long id;
+        private final double distanceKm;
+
+        Hit(long id, double distanceKm) {
+            this.id = id;
+            this.distanceKm = distanceKm;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+}
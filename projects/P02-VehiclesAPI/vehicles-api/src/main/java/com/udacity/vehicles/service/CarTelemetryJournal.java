@@ -0,0 +1,264 @@
+package com.udacity.vehicles.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of the location reports not yet written to the database,
+ * so that reports accepted before a crash are replayed on restart. Reports
+ * are appended to the active segment; each flush seals it and starts a new
+ * one, and sealed segments are deleted once their reports are committed.
+ * <p>
+ * A record is the car ID, latitude, longitude and report time, followed by
+ * their CRC32, so a record torn by a crash is detected and ends the replay
+ * of its segment. Segments are forced to disk when sealed: a process crash
+ * loses no report, a machine crash loses at most one flush interval.
+ * <p>
+ * A journal is owned by a single process: it holds an exclusive lock on a
+ * lock file of its directory while open, and refuses to open a directory
+ * locked by another journal, whose segments it would otherwise delete or replay.
+ */
+class CarTelemetryJournal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CarTelemetryJournal.class);
+
+    private static final String PREFIX = "telemetry-";
+    private static final String SUFFIX = ".log";
+    private static final String LOCK_FILE = "telemetry.lock";
+    private static final int PAYLOAD_BYTES = 4 * Long.BYTES;
+    static final int RECORD_BYTES = PAYLOAD_BYTES + Integer.BYTES;
+
+    private final Path directory;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private long activeSequence;
+    private FileChannel active;
+
+    /**
+     * Opens the journal kept in a directory, creating the directory if needed.
+     * Existing segments are kept for {@link #replay(Consumer)}, unless empty.
+     * @param directory directory of the segment files, used by this journal only
+     * @throws IllegalStateException if another journal has the directory open
+     */
+    CarTelemetryJournal(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open telemetry journal in " + directory, e);
+        }
+        lock = tryLock(lockChannel, directory);
+        try {
+            final List<Long> sequences = sequences();
+            for (long sequence : sequences) {
+                // Left by a clean shutdown, or a crash before any report.
+                if (Files.size(segment(sequence)) == 0) {
+                    Files.delete(segment(sequence));
+                }
+            }
+            activeSequence = sequences.isEmpty() ? 1 : sequences.get(sequences.size() - 1) + 1;
+            active = open(activeSequence);
+        } catch (IOException e) {
+            closeQuietly(lockChannel);
+            throw new UncheckedIOException("Cannot open telemetry journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Reads the reports of the segments written before this journal was opened.
+     * @param consumer receives each report, oldest first
+     * @return number of reports read
+     */
+    synchronized int replay(Consumer<CarLocationReport> consumer) {
+        int count = 0;
+        try {
+            for (long sequence : sequences()) {
+                if (sequence < activeSequence) {
+                    count += read(segment(sequence), consumer);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot replay telemetry journal in " + directory, e);
+        }
+        return count;
+    }
+
+    /**
+     * Appends a report to the active segment. Safe to call from several
+     * threads; the report is in the operating system's hands on return.
+     * @param report the report to log
+     */
+    void append(CarLocationReport report) {
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        record.putLong(report.getId())
+                .putDouble(report.getLat())
+                .putDouble(report.getLon())
+                .putLong(report.getReportedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        final CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, PAYLOAD_BYTES);
+        record.putInt((int) crc.getValue());
+        record.flip();
+        try {
+            final FileChannel channel = current();
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to telemetry journal", e);
+        }
+    }
+
+    /**
+     * Forces the active segment to disk and starts a new one. The caller
+     * must keep appends out while sealing, so no report lands in a segment
+     * after its reports were taken for a flush.
+     * @return sequence of the sealed segment, for {@link #deleteUpTo(long)}
+     */
+    synchronized long seal() {
+        try {
+            active.force(false);
+            active.close();
+            final long sealed = activeSequence;
+            active = open(++activeSequence);
+            return sealed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot seal telemetry journal segment", e);
+        }
+    }
+
+    /**
+     * Deletes the sealed segments up to a sequence, once their reports are committed.
+     * @param sequence last sequence to delete
+     */
+    synchronized void deleteUpTo(long sequence) {
+        try {
+            for (long candidate : sequences()) {
+                if (candidate <= sequence && candidate < activeSequence) {
+                    Files.deleteIfExists(segment(candidate));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Cannot delete telemetry journal segments up to {}", sequence, e);
+        }
+    }
+
+    /**
+     * Number of segment files, including the active one.
+     * @return current number of segments
+     */
+    synchronized int segments() {
+        try {
+            return sequences().size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            active.force(false);
+            active.close();
+        } finally {
+            lock.release();
+            lockChannel.close();
+        }
+    }
+
+    private static FileLock tryLock(FileChannel channel, Path directory) {
+        FileLock lock = null;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another journal of this process.
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new UncheckedIOException("Cannot lock telemetry journal in " + directory, e);
+        }
+        if (lock == null) {
+            closeQuietly(channel);
+            throw new IllegalStateException("Telemetry journal in " + directory
+                    + " is in use by another instance, each needs its own directory");
+        }
+        return lock;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Cannot close {}", channel, e);
+        }
+    }
+
+    private synchronized FileChannel current() {
+        return active;
+    }
+
+    private FileChannel open(long sequence) throws IOException {
+        return FileChannel.open(segment(sequence), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path segment(long sequence) {
+        return directory.resolve(String.format("%s%019d%s", PREFIX, sequence, SUFFIX));
+    }
+
+    private List<Long> sequences() throws IOException {
+        final List<Long> sequences = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                final String name = file.getFileName().toString();
+                try {
+                    sequences.add(Long.parseLong(
+                            name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring unexpected file {} in telemetry journal", file);
+                }
+            }
+        }
+        Collections.sort(sequences);
+        return sequences;
+    }
+
+    private static int read(Path segment, Consumer<CarLocationReport> consumer) throws IOException {
+        final ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segment));
+        final CRC32 crc = new CRC32();
+        int count = 0;
+        while (records.remaining() >= RECORD_BYTES) {
+            final int start = records.position();
+            crc.reset();
+            crc.update(records.array(), start, PAYLOAD_BYTES);
+            final CarLocationReport report = new CarLocationReport(records.getLong(),
+                    records.getDouble(), records.getDouble(),
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(records.getLong()), ZoneOffset.UTC));
+            if (records.getInt() != (int) crc.getValue()) {
+                log.warn("Telemetry journal segment {} is torn at byte {}", segment, start);
+                break;
+            }
+            consumer.accept(report);
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,309 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.GeoHash;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Takes the positions reported by car trackers off the request path. Reports
+ * are logged to a {@link CarTelemetryJournal} and coalesced per car in memory,
+ * keeping the latest one; every "vehicles.telemetry.flush-interval-ms" the
+ * pending positions are written in JDBC batches, in one transaction, without
+ * loading the cars. A flush bumps the version and modification time of the
+ * moved cars, so their ETags and the change feed see the move. The report
+ * time is stored with the position, and a report older than the one already
+ * written is dropped, so a report arriving late never moves a car back.
+ * <p>
+ * At most "vehicles.telemetry.max-pending" cars wait for a flush; reports
+ * beyond are refused, for trackers to retry later. Reports of unknown cars
+ * are accepted and dropped when flushed.
+ * <p>
+ * "vehicles.telemetry.journal-dir" defaults to "telemetry" in the working
+ * directory. Each instance needs a directory of its own, and startup fails
+ * if another instance holds it.
+ */
+@Service
+public class CarTelemetryService implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(CarTelemetryService.class);
+
+    private static final String UPDATE_LOCATION = "update car set lat = ?, lon = ?, geohash = ?,"
+            + " modified_at = ?, location_reported_at = ?, version = coalesce(version, 0) + 1"
+            + " where id = ? and (location_reported_at is null or location_reported_at <= ?)";
+    private static final Comparator<CarLocationReport> BY_REPORT_TIME =
+            Comparator.comparing(CarLocationReport::getReportedAt);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CarChangeFeed changeFeed;
+    private final ObjectProvider<CarSpatialIndex> spatialIndex;
+    private final CarTelemetryJournal journal;
+    private final int maxPending;
+    private final int batchSize;
+
+    /**
+     * Latest report of each car since the last flush. Replaced, not cleared,
+     * by a flush, while appends are held off by the write lock of "intake".
+     */
+    private volatile Map<Long, CarLocationReport> pending = new ConcurrentHashMap<>();
+    private final ReadWriteLock intake = new ReentrantReadWriteLock();
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+
+    public CarTelemetryService(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            CarChangeFeed changeFeed,
+            ObjectProvider<CarSpatialIndex> spatialIndex,
+            @Value("${vehicles.telemetry.journal-dir:telemetry}") String journalDir,
+            @Value("${vehicles.telemetry.max-pending:100000}") int maxPending,
+            @Value("${vehicles.telemetry.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.changeFeed = changeFeed;
+        this.spatialIndex = spatialIndex;
+        this.journal = new CarTelemetryJournal(Paths.get(journalDir));
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Takes back the reports logged but not written before the last shutdown.
+     */
+    @PostConstruct
+    public void recover() {
+        final int replayed = journal.replay(this::coalesce);
+        if (replayed > 0) {
+            log.info("Replayed {} location reports of {} cars from the telemetry journal",
+                    replayed, pending.size());
+        }
+    }
+
+    /**
+     * Accepts location reports, to be written by the next flush.
+     * @param reports the reports, in any order
+     * @throws InvalidLocationReportException if a report misses its car or
+     *   has an invalid position; no report is accepted then
+     * @throws TelemetryOverloadedException if too many cars wait for a flush
+     */
+    public void record(List<CarLocationReport> reports) {
+        final LocalDateTime now = LocalDateTime.now();
+        for (CarLocationReport report : reports) {
+            validate(report);
+            if (report.getReportedAt() == null) {
+                report.setReportedAt(now);
+            }
+        }
+        intake.readLock().lock();
+        try {
+            if (pending.size() + reports.size() > maxPending) {
+                throw new TelemetryOverloadedException(String.format(
+                        "%d cars are waiting for their location to be written", pending.size()));
+            }
+            for (CarLocationReport report : reports) {
+                journal.append(report);
+                received.increment();
+                coalesce(report);
+            }
+        } finally {
+            intake.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the latest position of every car reported since the last flush.
+     * When the write fails the positions are kept, and the next flush writes
+     * them unless newer ones were reported meanwhile.
+     * @return number of cars moved
+     */
+    @Scheduled(fixedDelayString = "${vehicles.telemetry.flush-interval-ms:1000}")
+    public synchronized int flush() {
+        final Map<Long, CarLocationReport> batch;
+        final long sealed;
+        intake.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            sealed = journal.seal();
+            batch = pending;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            intake.writeLock().unlock();
+        }
+
+        final List<CarLocationReport> reports = new ArrayList<>(batch.values());
+        reports.sort(Comparator.comparing(CarLocationReport::getId));
+        final List<CarLocationReport> moved;
+        final long start = System.nanoTime();
+        try {
+            moved = write(reports);
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Cannot write the location of {} cars, retrying on next flush",
+                    reports.size(), e);
+            intake.readLock().lock();
+            try {
+                reports.forEach(this::restore);
+            } finally {
+                intake.readLock().unlock();
+            }
+            return 0;
+        } finally {
+            flushes.increment();
+            flushNanos.add(System.nanoTime() - start);
+        }
+
+        journal.deleteUpTo(sealed);
+        written.add(moved.size());
+        final CarSpatialIndex index = spatialIndex.getIfAvailable();
+        if (index != null) {
+            moved.forEach(report -> index.put(report.getId(), report.getLat(), report.getLon()));
+        }
+        if (!moved.isEmpty()) {
+            changeFeed.recordChange();
+        }
+        return moved.size();
+    }
+
+    /**
+     * Number of cars whose reported position is not written yet.
+     * @return current number of pending positions
+     */
+    public int pending() {
+        return pending.size();
+    }
+
+    /**
+     * Writes what is pending and closes the journal.
+     * @throws IOException if the journal cannot be closed
+     */
+    @PreDestroy
+    public void shutdown() throws IOException {
+        flush();
+        journal.close();
+    }
+
+    /**
+     * Closes the journal without writing what is pending, as a crash would.
+     * @throws IOException if the journal cannot be closed
+     */
+    void abandon() throws IOException {
+        journal.close();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("vehicles.telemetry.reports", received, LongAdder::sum)
+                .description("Location reports accepted")
+                .register(registry);
+        FunctionCounter.builder("vehicles.telemetry.coalesced", coalesced, LongAdder::sum)
+                .description("Location reports superseded before being written")
+                .register(registry);
+        FunctionCounter.builder("vehicles.telemetry.written", written, LongAdder::sum)
+                .description("Car locations written to the database")
+                .register(registry);
+        FunctionCounter.builder("vehicles.telemetry.flush.failures", failures, LongAdder::sum)
+                .description("Flushes that could not write the pending locations")
+                .register(registry);
+        FunctionTimer.builder("vehicles.telemetry.flush", this,
+                service -> service.flushes.sum(), service -> service.flushNanos.sum(),
+                TimeUnit.NANOSECONDS)
+                .description("Time spent writing the pending locations")
+                .register(registry);
+        Gauge.builder("vehicles.telemetry.pending", this, CarTelemetryService::pending)
+                .description("Cars whose reported location is not written yet")
+                .register(registry);
+    }
+
+    private void coalesce(CarLocationReport report) {
+        pending.merge(report.getId(), report, (current, next) -> {
+            coalesced.increment();
+            return latest(current, next);
+        });
+    }
+
+    /**
+     * Puts back a report of a failed flush. It was already counted when
+     * received, so it is not counted again when merged with a newer report.
+     */
+    private void restore(CarLocationReport report) {
+        pending.merge(report.getId(), report, CarTelemetryService::latest);
+    }
+
+    private static CarLocationReport latest(CarLocationReport current, CarLocationReport next) {
+        return BY_REPORT_TIME.compare(next, current) >= 0 ? next : current;
+    }
+
+    private List<CarLocationReport> write(List<CarLocationReport> reports) {
+        final Timestamp modifiedAt = Timestamp.valueOf(LocalDateTime.now());
+        final int[][] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(
+                UPDATE_LOCATION, reports, batchSize, (statement, report) -> {
+                    statement.setDouble(1, report.getLat());
+                    statement.setDouble(2, report.getLon());
+                    statement.setString(3,
+                            GeoHash.encode(report.getLat(), report.getLon(), GeoHash.PRECISION));
+                    final Timestamp reportedAt = Timestamp.valueOf(report.getReportedAt());
+                    statement.setTimestamp(4, modifiedAt);
+                    statement.setTimestamp(5, reportedAt);
+                    statement.setLong(6, report.getId());
+                    statement.setTimestamp(7, reportedAt);
+                }));
+        final List<CarLocationReport> moved = new ArrayList<>(reports.size());
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // No row for unknown cars and outdated reports. Drivers may
+                // answer SUCCESS_NO_INFO (-2) rather than a row count.
+                if (count != 0) {
+                    moved.add(reports.get(i));
+                }
+                i++;
+            }
+        }
+        return moved;
+    }
+
+    private static void validate(CarLocationReport report) {
+        if (report.getId() == null) {
+            throw new InvalidLocationReportException("A location report must name its car");
+        }
+        if (report.getLat() == null || report.getLat() < -90 || report.getLat() > 90
+                || report.getLon() == null || report.getLon() < -180 || report.getLon() > 180) {
+            throw new InvalidLocationReportException(String.format(
+                    "Invalid position (%s, %s) for car %s",
+                    report.getLat(), report.getLon(), report.getId()));
+        }
+    }
+}
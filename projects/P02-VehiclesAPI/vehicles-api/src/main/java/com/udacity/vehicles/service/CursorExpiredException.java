@@ -0,0 +1,16 @@
+package com.udacity.vehicles.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a change feed cursor is older than the tombstones kept, so
+ * deletions may have been missed and the client must export the fleet again.
+ */
+@ResponseStatus(code = HttpStatus.GONE, reason = "Change feed cursor expired, export the fleet again")
+public class CursorExpiredException extends RuntimeException {
+
+    public CursorExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.udacity.vehicles.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.BAD_REQUEST, reason = "Invalid location report")
+public class InvalidLocationReportException extends RuntimeException {
+
+    public InvalidLocationReportException(String message) {
+        super(message);
+    }
+}
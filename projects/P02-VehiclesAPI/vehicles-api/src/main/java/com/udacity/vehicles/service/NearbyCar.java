@@ -0,0 +1,25 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.car.Car;
+
+/**
+ * Holds a car found by a location search, with its distance to the searched location.
+ */
+public class NearbyCar {
+
+    private final Car car;
+    private final double distanceKm;
+
+    public NearbyCar(Car car, double distanceKm) {
+        this.car = car;
+        this.distanceKm = distanceKm;
+    }
+
+    public Car getCar() {
+        return car;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+}
@@ -0,0 +1,12 @@
+package com.udacity.vehicles.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE, reason = "Too many pending location reports")
+public class TelemetryOverloadedException extends RuntimeException {
+
+    public TelemetryOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,41 @@
+package com.udacity.vehicles;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.function.Supplier;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Counts the SQL statements Hibernate prepares while a read path runs, so
+ * that a query issued once per row, rather than once per page, fails the build.
+ */
+public final class SqlStatements {
+
+    private SqlStatements() { }
+
+    /**
+     * Runs an action and checks how many SQL statements it issued.
+     * @param entityManagerFactory factory of the sessions used by the action
+     * @param max largest number of statements allowed
+     * @param action read path to run
+     * @param <T> type of the action result
+     * @return the result of the action
+     */
+    public static <T> T assertAtMost(EntityManagerFactory entityManagerFactory, long max,
+            Supplier<T> action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            T result = action.get();
+            long count = statistics.getPrepareStatementCount();
+            assertTrue("Expected at most " + max + " SQL statements, but " + count + " were issued",
+                    count <= max);
+            return result;
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+}
@@ -1,11 +1,24 @@
 package com.udacity.vehicles.api;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.udacity.vehicles.client.maps.MapsClient;
@@ -13,11 +26,19 @@ import com.udacity.vehicles.client.prices.PriceClient;
 import com.udacity.vehicles.domain.Condition;
 import com.udacity.vehicles.domain.Location;
 import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarVersion;
 import com.udacity.vehicles.domain.car.Details;
 import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.service.CarConflictException;
+import com.udacity.vehicles.service.CarExportService;
+import com.udacity.vehicles.service.CarIdempotencyService;
+import com.udacity.vehicles.service.CarPage;
 import com.udacity.vehicles.service.CarService;
+import com.udacity.vehicles.service.CarTelemetryService;
 import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.function.Consumer;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -27,9 +48,12 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.json.JacksonTester;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Mono;
 
 /**
  * Implements testing of the CarController class.
@@ -49,6 +73,15 @@ public class CarControllerTest {
     @MockBean
     private CarService carService;
 
+    @MockBean
+    private CarExportService exportService;
+
+    @MockBean
+    private CarIdempotencyService idempotencyService;
+
+    @MockBean
+    private CarTelemetryService telemetryService;
+
     @MockBean
     private PriceClient priceClient;
 
@@ -62,9 +95,22 @@ public class CarControllerTest {
     public void setup() {
         Car car = getCar();
         car.setId(1L);
+        car.setVersion(3L);
+        car.setModifiedAt(LocalDateTime.of(2020, 1, 1, 12, 0));
         given(carService.save(any())).willReturn(car);
         given(carService.findById(any())).willReturn(car);
+        given(carService.findByIdAsync(any())).willReturn(Mono.just(car));
         given(carService.list()).willReturn(Collections.singletonList(car));
+        given(carService.listPage(any(), any(), any()))
+                .willReturn(Mono.just(new CarPage(Collections.singletonList(car), 1, 1L, null)));
+        given(carService.findPage(any(), any(), any()))
+                .willReturn(Mono.just(new CarPage(Collections.singletonList(car), 1, 1L, null)));
+        given(carService.enrich(any())).willAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        CarVersion version = mock(CarVersion.class);
+        given(version.getId()).willReturn(1L);
+        given(version.getVersion()).willReturn(3L);
+        given(version.getModifiedAt()).willReturn(car.getModifiedAt());
+        given(carService.findVersionAsync(1L)).willReturn(Mono.just(version));
     }
 
     /**
@@ -82,6 +128,42 @@ public class CarControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    /**
+     * Tests that a creation carrying an idempotency key is made at most once.
+     * @throws Exception when car creation fails in the system
+     */
+    @Test
+    public void createCarOnce() throws Exception {
+        Car car = getCar();
+        car.setId(1L);
+        given(idempotencyService.create(eq("order-1"), any())).willReturn(car);
+        mvc.perform(
+                post(new URI("/cars"))
+                        .header(CarController.IDEMPOTENCY_KEY, "order-1")
+                        .content(json.write(getCar()).getJson())
+                        .contentType(MediaType.APPLICATION_JSON_UTF8)
+                        .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/cars/1"));
+        verify(idempotencyService).create(eq("order-1"), any());
+        verify(carService, never()).save(any());
+    }
+
+    /**
+     * Tests that an update of a modified car is answered with 409 Conflict.
+     * @throws Exception when car update fails in the system
+     */
+    @Test
+    public void updateModifiedCar() throws Exception {
+        given(carService.save(any())).willThrow(new CarConflictException("Car modified"));
+        mvc.perform(
+            put(new URI("/cars/1"))
+                .content(json.write(getCar()).getJson())
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+            .andExpect(status().isConflict());
+    }
+
     /**
      * Tests for successful update car in the system
      * @throws Exception when car update fails in the system
@@ -103,11 +185,69 @@ public class CarControllerTest {
      */
     @Test
     public void listCars() throws Exception {
-        mvc.perform(
+        MvcResult result = mvc.perform(
             get(new URI("/cars"))
                 .accept(MediaType.APPLICATION_JSON_UTF8))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$._embedded.carList[0].id").value(1))
+            .andExpect(jsonPath("$._embedded.carList[0]._links.self.href").value("http://localhost/cars/1"))
+            .andExpect(jsonPath("$._embedded.carList[0]._links.cars.href").value("http://localhost/cars"))
+            .andExpect(jsonPath("$._links.self.href").value("http://localhost/cars"))
+            .andExpect(jsonPath("$._links.next.href").value("http://localhost/cars?after=1&size=1"))
+            .andExpect(jsonPath("$._links.prev").doesNotExist());
+    }
+
+    /**
+     * Tests that the export writes one JSON document per line.
+     * @throws Exception if the export fails
+     */
+    @Test
+    public void exportCars() throws Exception {
+        Car first = getCar();
+        first.setId(1L);
+        Car second = getCar();
+        second.setId(2L);
+        given(exportService.export(isNull(), isNull(), any())).willAnswer(invocation -> {
+            Consumer<Car> consumer = invocation.getArgument(2);
+            consumer.accept(first);
+            consumer.accept(second);
+            return 2L;
+        });
+
+        MvcResult result = mvc.perform(get(new URI("/cars/export")))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        String body = mvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(CarController.NDJSON))
+            .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(Long.valueOf(1), json.parseObject(lines[0]).getId());
+        assertEquals(Long.valueOf(2), json.parseObject(lines[1]).getId());
+        assertTrue(body.endsWith("\n"));
+    }
+
+    /**
+     * Tests that an incremental export is read after the (modifiedAt, id)
+     * watermark given.
+     * @throws Exception if the export fails
+     */
+    @Test
+    public void exportCarsAfterWatermark() throws Exception {
+        MvcResult result = mvc.perform(
+                get(new URI("/cars/export?modifiedAfter=2019-06-01T12:00:00&afterId=7")))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mvc.perform(asyncDispatch(result))
             .andExpect(status().isOk());
 
+        verify(exportService).export(eq(LocalDateTime.of(2019, 6, 1, 12, 0)), eq(7L), any());
     }
 
     /**
@@ -116,10 +256,86 @@ public class CarControllerTest {
      */
     @Test
     public void findCar() throws Exception {
-        mvc.perform(
+        MvcResult result = mvc.perform(
             get(new URI("/cars/1"))
                 .accept(MediaType.APPLICATION_JSON_UTF8))
-            .andExpect(status().isOk());
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "W/\"3\""))
+            .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+            .andExpect(jsonPath("$.id").value(1));
+    }
+
+    /**
+     * Tests that a car still tagged as in If-None-Match is answered with
+     * 304 Not Modified without being loaded, and a changed one in full.
+     * @throws Exception if the read operation for a single car fails
+     */
+    @Test
+    public void findCarIfChanged() throws Exception {
+        MvcResult result = mvc.perform(
+            get(new URI("/cars/1"))
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"3\"")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mvc.perform(asyncDispatch(result))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "W/\"3\""))
+            .andExpect(content().string(""));
+        verify(carService, never()).findByIdAsync(any());
+
+        result = mvc.perform(
+            get(new URI("/cars/1"))
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"2\"")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(1));
+    }
+
+    /**
+     * Tests that an unchanged page is answered with 304 Not Modified,
+     * without gathering prices and addresses.
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listCarsIfChanged() throws Exception {
+        String etag = CarETags.of(carService.findPage(null, null, null).block());
+        MvcResult result = mvc.perform(
+            get(new URI("/cars"))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag));
+        verify(carService, never()).enrich(any());
+    }
+
+    /**
+     * Tests that location reports are handed to the telemetry service and accepted.
+     * @throws Exception if the reports cannot be posted
+     */
+    @Test
+    public void reportLocations() throws Exception {
+        mvc.perform(
+            post(new URI("/cars/telemetry"))
+                .content("[{\"id\":1,\"lat\":40.7,\"lon\":-73.9,\"reportedAt\":\"2020-01-01T12:00:00\"},"
+                        + "{\"id\":2,\"lat\":40.8,\"lon\":-73.8}]")
+                .contentType(MediaType.APPLICATION_JSON_UTF8))
+            .andExpect(status().isAccepted());
+        verify(telemetryService).record(argThat(reports -> reports.size() == 2
+                && reports.get(0).getId() == 1L
+                && LocalDateTime.of(2020, 1, 1, 12, 0).equals(reports.get(0).getReportedAt())
+                && reports.get(1).getReportedAt() == null));
     }
 
     /**
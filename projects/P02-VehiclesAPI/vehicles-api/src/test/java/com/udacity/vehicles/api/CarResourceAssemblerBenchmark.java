@@ -0,0 +1,103 @@
+package com.udacity.vehicles.api;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.service.CarPage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.Resources;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Compares the CarResourceAssembler, which expands the links of a page from
+ * the URI of the car collection, with links built through a controller proxy
+ * for every car. Not run by the build, start it from the test classpath:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath com.udacity.vehicles.api.CarResourceAssemblerBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarResourceAssemblerBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private CarPage page;
+    private CarResourceAssembler assembler;
+
+    /**
+     * Builds a page of cars and binds a request, as the links are built
+     * from the current request.
+     */
+    @Setup
+    public void setup() {
+        List<Car> cars = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            Car car = new Car();
+            car.setId(id);
+            cars.add(car);
+        }
+        page = new CarPage(cars, size, (long) size, null);
+        assembler = new CarResourceAssembler();
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest("GET", "/cars")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public Resources<Resource<Car>> templatedLinks() {
+        return assembler.toResources(page);
+    }
+
+    @Benchmark
+    public Resources<Resource<Car>> proxyLinks() {
+        List<Resource<Car>> resources = page.getCars().stream()
+                .map(car -> new Resource<>(car,
+                        linkTo(methodOn(CarController.class).get(car.getId(), null)).withSelfRel(),
+                        linkTo(methodOn(CarController.class).list(null, null, null, null))
+                                .withRel("cars").expand()))
+                .collect(Collectors.toList());
+        Resources<Resource<Car>> result = new Resources<>(resources);
+        result.add(linkTo(methodOn(CarController.class)
+                .list(page.getNextAfter(), null, page.getSize(), null)).withRel("next").expand());
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CarResourceAssemblerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,93 @@
+package com.udacity.vehicles.client.maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the AddressCache class.
+ */
+public class AddressCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    /**
+     * Tests that locations in the same grid cell share an entry.
+     */
+    @Test
+    public void nearbyLocationsShareAnEntry() {
+        AddressCache cache = new AddressCache(0.001, 100, Duration.ofHours(1));
+
+        Address first = cache.get(40.730610, -73.935242, this::load).block();
+        Address second = cache.get(40.730650, -73.935200, this::load).block();
+        cache.get(40.740610, -73.935242, this::load).block();
+
+        assertSame(first, second);
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Tests that the least recently used entry is evicted past the maximum size.
+     */
+    @Test
+    public void evictsLeastRecentlyUsedEntry() {
+        AddressCache cache = new AddressCache(0.001, 2, Duration.ofHours(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get(1, 1, this::load).block();
+        cache.get(2, 2, this::load).block();
+        cache.get(1, 1, this::load).block();
+        cache.get(3, 3, this::load).block();
+        cache.get(1, 1, this::load).block();
+        cache.get(2, 2, this::load).block();
+
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.size());
+        assertEquals(2.0, registry.get("cache.gets").tag("result", "hit").functionCounter().count(), 0);
+        assertEquals(4.0, registry.get("cache.gets").tag("result", "miss").functionCounter().count(), 0);
+        assertEquals(2.0, registry.get("cache.evictions").functionCounter().count(), 0);
+    }
+
+    /**
+     * Tests that entries are loaded again once they expire.
+     */
+    @Test
+    public void reloadsExpiredEntries() {
+        AddressCache cache = new AddressCache(0.001, 100, Duration.ZERO);
+
+        cache.get(1, 1, this::load).block();
+        cache.get(1, 1, this::load).block();
+
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Tests that concurrent misses on the same grid cell share a single load.
+     */
+    @Test
+    public void concurrentMissesShareALoad() {
+        AddressCache cache = new AddressCache(0.001, 100, Duration.ofHours(1));
+        Mono<Address> slowLoad = Mono.delay(Duration.ofMillis(50)).map(tick -> new Address());
+
+        Mono.zip(cache.get(1, 1, () -> {
+            loads.incrementAndGet();
+            return slowLoad;
+        }), cache.get(1, 1, () -> {
+            loads.incrementAndGet();
+            return slowLoad;
+        })).block();
+
+        assertEquals(1, loads.get());
+    }
+
+    private Mono<Address> load() {
+        loads.incrementAndGet();
+        return Mono.just(new Address());
+    }
+}
@@ -0,0 +1,120 @@
+package com.udacity.vehicles.client.prices;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the PriceCache class.
+ */
+public class PriceCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    /**
+     * Tests that fresh prices are served without asking the pricing service.
+     */
+    @Test
+    public void servesFreshPricesFromTheCache() {
+        PriceCache cache = new PriceCache(Duration.ofHours(1), Duration.ofHours(1), 100);
+
+        cache.get(1L, this::load).block();
+        Price price = cache.get(1L, this::load).block();
+
+        assertEquals(1, loads.get());
+        assertEquals(new BigDecimal("1"), price.getPrice());
+    }
+
+    /**
+     * Tests that stale prices are served right away and refreshed in the background.
+     */
+    @Test
+    public void servesStalePricesWhileRefreshing() {
+        PriceCache cache = new PriceCache(Duration.ZERO, Duration.ofHours(1), 100);
+
+        cache.get(1L, this::load).block();
+        Price stale = cache.get(1L, this::load).block();
+        Price refreshed = cache.get(1L, this::load).block();
+
+        assertEquals(3, loads.get());
+        assertEquals(new BigDecimal("1"), stale.getPrice());
+        assertEquals(new BigDecimal("2"), refreshed.getPrice());
+    }
+
+    /**
+     * Tests that a pricing outage keeps serving the stale price.
+     */
+    @Test
+    public void keepsStalePricesDuringAnOutage() {
+        PriceCache cache = new PriceCache(Duration.ZERO, Duration.ofHours(1), 100);
+        cache.get(1L, this::load).block();
+
+        Price price = cache.get(1L, id -> Mono.error(new IllegalStateException("down"))).block();
+
+        assertEquals(new BigDecimal("1"), price.getPrice());
+    }
+
+    /**
+     * Tests that prices past the hard TTL are loaded again before being served.
+     */
+    @Test
+    public void reloadsPricesPastTheHardTtl() {
+        PriceCache cache = new PriceCache(Duration.ZERO, Duration.ZERO, 100);
+
+        cache.get(1L, this::load).block();
+        Price price = cache.get(1L, this::load).block();
+
+        assertEquals(2, loads.get());
+        assertEquals(new BigDecimal("2"), price.getPrice());
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Tests that a full cache evicts the least recently used price to cache
+     * a new one.
+     */
+    @Test
+    public void evictsLeastRecentlyUsedWhenFull() {
+        PriceCache cache = new PriceCache(Duration.ofHours(1), Duration.ofHours(1), 2);
+
+        cache.get(1L, this::load).block();
+        cache.get(2L, this::load).block();
+        cache.get(1L, this::load).block();
+        cache.get(3L, this::load).block();
+        cache.get(3L, this::load).block();
+        cache.get(1L, this::load).block();
+
+        assertEquals(3, loads.get());
+        assertEquals(2, cache.size());
+        cache.get(2L, this::load).block();
+        assertEquals(4, loads.get());
+    }
+
+    /**
+     * Tests that a refresh completing without a price does not stop later refreshes.
+     */
+    @Test
+    public void refreshesAgainAfterAnEmptyRefresh() {
+        PriceCache cache = new PriceCache(Duration.ZERO, Duration.ofHours(1), 100);
+        cache.get(1L, this::load).block();
+
+        cache.get(1L, id -> Mono.empty()).block();
+        Price stale = cache.get(1L, this::load).block();
+        Price refreshed = cache.get(1L, this::load).block();
+
+        assertEquals(new BigDecimal("1"), stale.getPrice());
+        assertEquals(new BigDecimal("2"), refreshed.getPrice());
+    }
+
+    private Mono<Price> load(Long vehicleId) {
+        Price price = new Price();
+        price.setVehicleId(vehicleId);
+        price.setCurrency("USD");
+        price.setPrice(new BigDecimal(loads.incrementAndGet()));
+        return Mono.just(price);
+    }
+}
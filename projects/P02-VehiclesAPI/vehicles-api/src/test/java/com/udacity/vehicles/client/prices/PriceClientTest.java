@@ -0,0 +1,64 @@
+package com.udacity.vehicles.client.prices;
+
+import static org.junit.Assert.assertEquals;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the PriceClient class.
+ */
+public class PriceClientTest {
+
+    private final AtomicReference<URI> requested = new AtomicReference<>();
+
+    /**
+     * Tests that prices are requested in the configured currency, and
+     * formatted with the minor units of the currency they are served in.
+     */
+    @Test
+    public void requestsPricesInConfiguredCurrency() {
+        PriceClient client = priceClient(
+                client("{\"currency\":\"JPY\",\"price\":3494653.17,\"vehicleId\":1}"), "JPY");
+
+        assertEquals("JPY 3494653", client.getPrice(1L));
+        assertEquals("/services/price?vehicleId=1&currency=JPY", requested.get().toString());
+    }
+
+    /**
+     * Tests that prices are requested in their own currency by default.
+     */
+    @Test
+    public void requestsPricesInTheirCurrencyByDefault() {
+        PriceClient client = priceClient(
+                client("{\"currency\":\"USD\",\"price\":23112.7,\"vehicleId\":1}"), "");
+
+        assertEquals("USD 23112.70", client.getPrice(1L));
+        assertEquals("/services/price?vehicleId=1", requested.get().toString());
+    }
+
+    private PriceClient priceClient(WebClient pricing, String currency) {
+        return new PriceClient(pricing, new PriceCache(Duration.ZERO, Duration.ZERO, 100),
+                new PriceFrameClient(pricing, currency), currency, false);
+    }
+
+    private WebClient client(String body) {
+        return WebClient.builder()
+                .exchangeFunction(request -> {
+                    requested.set(request.url());
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(body)
+                            .build());
+                })
+                .build();
+    }
+}
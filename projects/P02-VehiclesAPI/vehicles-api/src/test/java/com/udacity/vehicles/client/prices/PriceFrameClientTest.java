@@ -0,0 +1,156 @@
+package com.udacity.vehicles.client.prices;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the PriceFrameClient class.
+ */
+public class PriceFrameClientTest {
+
+    private final AtomicReference<URI> requested = new AtomicReference<>();
+
+    /**
+     * Tests that a single lookup decodes the price.
+     */
+    @Test
+    public void looksUpSinglePrice() {
+        ByteBuffer frame = ByteBuffer.allocate(64);
+        writePrice(frame, 1L, 2126377L, "EUR");
+        PriceFrameClient client = new PriceFrameClient(client(frame, 64), "EUR");
+
+        Price price = client.lookup(1L).block();
+
+        assertEquals("/services/price/frames?currency=EUR&vehicleId=1",
+                requested.get().toString());
+        assertEquals(Long.valueOf(1L), price.getVehicleId());
+        assertEquals(new BigDecimal("21263.77"), price.getPrice());
+        assertEquals("EUR", price.getCurrency());
+    }
+
+    /**
+     * Tests that a single lookup signals a vehicle without a price as an error.
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void signalsMissingPrice() {
+        ByteBuffer missing = ByteBuffer.allocate(16);
+        writeMissing(missing, 42L);
+
+        new PriceFrameClient(client(missing, 16), "").lookup(42L).block();
+    }
+
+    /**
+     * Tests that a batch lookup decodes frames split anywhere across the
+     * buffers of the response, leaving out vehicles without a price.
+     */
+    @Test
+    public void looksUpBatchAcrossSplitFrames() {
+        ByteBuffer frames = ByteBuffer.allocate(256);
+        writePrice(frames, 1L, 2311279L, "USD");
+        writeMissing(frames, 42L);
+        frames.putShort((short) 3).put((byte) 9).putShort((short) 0);
+        writePrice(frames, 2L, 1872508L, "USD");
+
+        List<Price> prices = new PriceFrameClient(client(frames, 5), "")
+                .lookupAll(Arrays.asList(1L, 42L, 2L))
+                .collectList().block();
+
+        assertEquals(2, prices.size());
+        assertEquals(Long.valueOf(1L), prices.get(0).getVehicleId());
+        assertEquals(new BigDecimal("18725.08"), prices.get(1).getPrice());
+    }
+
+    /**
+     * Tests that a response ending within a frame is an error.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void rejectsTruncatedBatch() {
+        ByteBuffer frames = ByteBuffer.allocate(256);
+        writePrice(frames, 1L, 2311279L, "USD");
+        frames.position(frames.position() - 2);
+
+        new PriceFrameClient(client(frames, 7), "").lookupAll(Arrays.asList(1L)).blockLast();
+    }
+
+    /**
+     * Tests that frames too short for their type, or for their currency,
+     * are errors rather than read into the next frame.
+     */
+    @Test
+    public void rejectsShortFrames() {
+        ByteBuffer shortMissing = ByteBuffer.allocate(64);
+        shortMissing.putShort((short) 5).put((byte) 2).putInt(42);
+        writeMissing(shortMissing, 43L);
+        assertRejected(shortMissing);
+
+        ByteBuffer shortPrice = ByteBuffer.allocate(64);
+        shortPrice.putShort((short) 17).put((byte) 1).putLong(1L).putLong(2311279L);
+        writeMissing(shortPrice, 43L);
+        assertRejected(shortPrice);
+
+        ByteBuffer longCurrency = ByteBuffer.allocate(64);
+        writePrice(longCurrency, 1L, 2311279L, "USD");
+        longCurrency.put(20, (byte) 13);
+        writeMissing(longCurrency, 43L);
+        assertRejected(longCurrency);
+    }
+
+    private void assertRejected(ByteBuffer frames) {
+        try {
+            new PriceFrameClient(client(frames, 64), "").lookupAll(Arrays.asList(1L, 43L))
+                    .blockLast();
+            fail("A frame too short for its content should be rejected");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().startsWith("Price frame"));
+        }
+    }
+
+    private static void writePrice(ByteBuffer out, long vehicleId, long amount, String currency) {
+        out.putShort((short) (19 + currency.length())).put((byte) 1)
+                .putLong(vehicleId).putLong(amount).put((byte) 2)
+                .put((byte) currency.length()).put(currency.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void writeMissing(ByteBuffer out, long vehicleId) {
+        out.putShort((short) 9).put((byte) 2).putLong(vehicleId);
+    }
+
+    /**
+     * Answers every request with the given frames, in buffers of at most
+     * the given size.
+     */
+    private WebClient client(ByteBuffer frames, int bufferSize) {
+        final byte[] body = Arrays.copyOf(frames.array(), frames.position());
+        return WebClient.builder()
+                .exchangeFunction(request -> {
+                    requested.set(request.url());
+                    Flux<DataBuffer> buffers = Flux.range(0, (body.length + bufferSize - 1) / bufferSize)
+                            .map(chunk -> new DefaultDataBufferFactory().wrap(Arrays.copyOfRange(body,
+                                    chunk * bufferSize, Math.min(body.length, (chunk + 1) * bufferSize))));
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, PriceFrames.MEDIA_TYPE.toString())
+                            .body(buffers)
+                            .build());
+                })
+                .build();
+    }
+}
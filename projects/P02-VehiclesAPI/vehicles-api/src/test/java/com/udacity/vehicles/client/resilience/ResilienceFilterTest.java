@@ -0,0 +1,142 @@
+package com.udacity.vehicles.client.resilience;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the ResilienceFilter class.
+ */
+public class ResilienceFilterTest {
+
+    private final ClientRequest request = ClientRequest
+            .create(HttpMethod.GET, URI.create("http://localhost/maps")).build();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicLong now = new AtomicLong();
+
+    /**
+     * Tests that the breaker opens on failures, then probes and closes again.
+     */
+    @Test
+    public void circuitOpensAndRecoversThroughHalfOpenProbes() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.getCircuitBreaker().setMinimumCalls(4);
+        properties.getCircuitBreaker().setHalfOpenProbes(2);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofSeconds(10));
+        ResilienceFilter filter = new ResilienceFilter("maps", properties, now::get);
+
+        for (int i = 0; i < 4; i++) {
+            filter.filter(request, respondWith(HttpStatus.SERVICE_UNAVAILABLE)).block();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, filter.circuitState());
+        assertRejected(filter, respondWith(HttpStatus.OK));
+        assertEquals(4, calls.get());
+
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+        filter.filter(request, respondWith(HttpStatus.OK)).block();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, filter.circuitState());
+        filter.filter(request, respondWith(HttpStatus.OK)).block();
+        assertEquals(CircuitBreaker.State.CLOSED, filter.circuitState());
+    }
+
+    /**
+     * Tests that a failed probe opens the breaker for another period.
+     */
+    @Test
+    public void failedProbeReopensCircuit() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.getCircuitBreaker().setMinimumCalls(1);
+        ResilienceFilter filter = new ResilienceFilter("maps", properties, now::get);
+
+        filter.filter(request, respondWith(HttpStatus.INTERNAL_SERVER_ERROR)).block();
+        now.addAndGet(properties.getCircuitBreaker().getOpenDuration().toNanos());
+        filter.filter(request, respondWith(HttpStatus.INTERNAL_SERVER_ERROR)).block();
+
+        assertEquals(CircuitBreaker.State.OPEN, filter.circuitState());
+    }
+
+    /**
+     * Tests that calls beyond the bulkhead capacity are rejected without being sent.
+     */
+    @Test
+    public void bulkheadRejectsExcessCalls() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.setMaxConcurrentCalls(1);
+        ResilienceFilter filter = new ResilienceFilter("maps", properties);
+
+        Mono<ClientResponse> inFlight = filter.filter(request, next -> Mono.never());
+        inFlight.subscribe().dispose();
+        inFlight.subscribe();
+
+        assertRejected(filter, respondWith(HttpStatus.OK));
+    }
+
+    /**
+     * Tests that calls without a response within the timeout fail.
+     */
+    @Test(expected = TimeoutException.class)
+    public void slowCallsTimeOut() throws Throwable {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.setTimeout(Duration.ofMillis(50));
+        ResilienceFilter filter = new ResilienceFilter("maps", properties);
+
+        try {
+            filter.filter(request, next -> Mono.never()).block();
+        } catch (RuntimeException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Tests that a GET slower than the usual latency is sent a second time,
+     * and the faster response is used.
+     */
+    @Test
+    public void slowGetsAreHedged() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.getHedge().setEnabled(true);
+        properties.getHedge().setWindowSize(10);
+        properties.getHedge().setMinDelay(Duration.ofMillis(1));
+        ResilienceFilter filter = new ResilienceFilter("maps", properties);
+        for (int i = 0; i < 10; i++) {
+            filter.filter(request, respondWith(HttpStatus.OK)).block();
+        }
+
+        ExchangeFunction slowThenFast = next -> calls.incrementAndGet() == 11
+                ? Mono.never()
+                : Mono.just(ClientResponse.create(HttpStatus.OK).build());
+        ClientResponse response = filter.filter(request, slowThenFast)
+                .block(Duration.ofSeconds(1));
+
+        assertEquals(HttpStatus.OK, response.statusCode());
+        assertEquals(12, calls.get());
+    }
+
+    private ExchangeFunction respondWith(HttpStatus status) {
+        return next -> {
+            calls.incrementAndGet();
+            return Mono.just(ClientResponse.create(status).build());
+        };
+    }
+
+    private void assertRejected(ResilienceFilter filter, ExchangeFunction next) {
+        try {
+            filter.filter(request, next).block();
+            fail("Call should have been rejected");
+        } catch (DownstreamUnavailableException expected) {
+            // rejected without being sent
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.udacity.vehicles.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Models a burst of requests that each wait on two downstream calls in turn,
+ * handled by blocking on a Tomcat-sized thread pool, by blocking on virtual
+ * threads, or by composing the responses without blocking. This is a model
+ * of the three styles of handler, not a measurement of the application's
+ * handlers: downstream calls are simulated by a delay completing on
+ * Reactor's timer, and the application's read paths already compose
+ * reactively whatever "vehicles.execution.mode" is, see VirtualThreadConfig.
+ * Not run by the build, start it from the test classpath:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath com.udacity.vehicles.config.ExecutionModeBenchmark"
+ * </pre>
+ * The virtual mode is only run on Java 21 and later.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    /**
+     * Default of "server.tomcat.max-threads".
+     */
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final Duration DOWNSTREAM_LATENCY = Duration.ofMillis(20);
+
+    @Param({"platform", "virtual", "reactive"})
+    private String mode;
+
+    @Param({"2000"})
+    private int requests;
+
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        if ("platform".equals(mode)) {
+            executor = Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        } else if ("virtual".equals(mode)) {
+            executor = VirtualThreads.newPerTaskExecutor("bench-virtual-");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public long serveBurst() {
+        if (executor == null) {
+            return Flux.range(0, requests)
+                    .flatMap(request -> downstream().then(downstream()), requests)
+                    .count()
+                    .block();
+        }
+        List<CompletableFuture<Long>> responses = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            responses.add(CompletableFuture.supplyAsync(
+                    () -> downstream().block() + downstream().block(), executor));
+        }
+        return responses.stream().mapToLong(CompletableFuture::join).sum();
+    }
+
+    private static Mono<Long> downstream() {
+        return Mono.delay(DOWNSTREAM_LATENCY);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExecutionModeBenchmark.class.getSimpleName())
+                .param("mode", VirtualThreads.isAvailable()
+                        ? new String[] {"platform", "virtual", "reactive"}
+                        : new String[] {"platform", "reactive"})
+                .build()).run();
+    }
+}
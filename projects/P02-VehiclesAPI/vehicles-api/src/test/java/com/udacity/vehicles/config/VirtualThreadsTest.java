@@ -0,0 +1,39 @@
+package com.udacity.vehicles.config;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.ExecutorService;
+import org.junit.Test;
+
+/**
+ * Implements testing of the VirtualThreads class, on whichever JVM runs the build.
+ */
+public class VirtualThreadsTest {
+
+    /**
+     * Tests that tasks run on named threads of their own.
+     * @throws Exception if a task fails
+     */
+    @Test
+    public void runsTasksOnVirtualThreads() throws Exception {
+        assumeTrue(VirtualThreads.isAvailable());
+        ExecutorService executor = VirtualThreads.newPerTaskExecutor("test-virtual-");
+        try {
+            String name = executor.submit(() -> Thread.currentThread().getName()).get();
+            assertTrue(name, name.startsWith("test-virtual-"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tests that JVMs without virtual threads are refused.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void refusesOlderJvms() {
+        assumeFalse(VirtualThreads.isAvailable());
+        VirtualThreads.newPerTaskExecutor("test-virtual-");
+    }
+}
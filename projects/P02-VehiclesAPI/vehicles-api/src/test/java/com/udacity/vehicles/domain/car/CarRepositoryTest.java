@@ -0,0 +1,128 @@
+package com.udacity.vehicles.domain.car;
+
+import static com.udacity.vehicles.SqlStatements.assertAtMost;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implements testing of the queries issued when reading cars. Cars are
+ * committed and every read opens its own session, as it would outside of tests.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CarRepositoryTest {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private ManufacturerRepository manufacturerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    /**
+     * Stores cars of every manufacturer, with the catalog loaded as on startup.
+     */
+    @Before
+    public void setup() {
+        for (Manufacturer manufacturer : manufacturerRepository.loadCatalog()) {
+            for (int i = 0; i < 3; i++) {
+                Car car = new Car();
+                car.setCondition(Condition.USED);
+                car.setLocation(new Location(40.730610, -73.935242));
+                car.getDetails().setBody("sedan");
+                car.getDetails().setModel("Model " + i);
+                car.getDetails().setManufacturer(manufacturer);
+                carRepository.save(car);
+            }
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @After
+    public void tearDown() {
+        statistics.setStatisticsEnabled(false);
+        carRepository.deleteAll();
+    }
+
+    /**
+     * Tests that cars are read without selecting their manufacturer.
+     */
+    @Test
+    public void readsManufacturersFromCache() {
+        List<Car> cars = carRepository.findAll();
+        Car car = carRepository.findById(cars.get(0).getId()).get();
+
+        assertEquals(15, cars.size());
+        assertEquals(cars.get(0).getDetails().getManufacturer().getName(),
+                car.getDetails().getManufacturer().getName());
+        assertEquals(0, statistics.getSecondLevelCacheMissCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Tests that the listing and search queries issue a fixed number of
+     * statements whatever the number of cars, even with a cold cache.
+     */
+    @Test
+    public void listsInBoundedStatements() {
+        entityManagerFactory.getCache().evict(Manufacturer.class);
+        List<Car> cars = assertAtMost(entityManagerFactory, 2, () -> carRepository.findAll());
+        List<Long> ids = cars.stream().map(Car::getId).collect(Collectors.toList());
+
+        assertEquals(15, cars.size());
+        assertEquals(5, assertAtMost(entityManagerFactory, 1,
+                () -> carRepository.findByIdGreaterThanOrderByIdAsc(ids.get(4), PageRequest.of(0, 5)))
+                .size());
+        assertEquals(15, assertAtMost(entityManagerFactory, 1,
+                () -> carRepository.findAllById(ids)).size());
+        assertEquals(15, assertAtMost(entityManagerFactory, 1, () -> carRepository.findAll(
+                (car, query, builder) -> builder.equal(car.get("details").get("body"), "sedan")))
+                .size());
+    }
+
+    /**
+     * Tests that the version is read without loading the car, and follows its updates.
+     */
+    @Test
+    public void readsVersion() {
+        Car stored = carRepository.findAll().get(0);
+        stored.setCondition(Condition.NEW);
+        Car car = carRepository.save(stored);
+
+        CarVersion version = assertAtMost(entityManagerFactory, 1,
+                () -> carRepository.findVersionById(car.getId()).get());
+        assertEquals(Long.valueOf(1), version.getVersion());
+        assertEquals(carRepository.findById(car.getId()).get().getModifiedAt(),
+                version.getModifiedAt());
+        assertFalse(carRepository.findVersionById(-1L).isPresent());
+    }
+}
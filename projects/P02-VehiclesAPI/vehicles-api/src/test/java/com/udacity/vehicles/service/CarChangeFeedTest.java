@@ -0,0 +1,142 @@
+package com.udacity.vehicles.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.car.CarTombstoneRepository;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Implements testing of the CarChangeFeed class. Changes are committed, as
+ * long-polls read them from another thread.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CarChangeFeedTest {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CarTombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private ManufacturerRepository manufacturerRepository;
+
+    private Manufacturer manufacturer;
+    private CarChangeFeed feed;
+
+    @Before
+    public void setup() {
+        manufacturer = manufacturerRepository.save(new Manufacturer(101, "Chevrolet"));
+        feed = new CarChangeFeed(carRepository, tombstoneRepository, Schedulers.immediate(),
+                2, Duration.ZERO, Duration.ofSeconds(5), Duration.ofDays(30));
+    }
+
+    @After
+    public void tearDown() {
+        carRepository.deleteAll();
+        tombstoneRepository.deleteAll();
+    }
+
+    /**
+     * Tests that saves and deletes are fed in the order they happened, and
+     * that the returned cursor skips them on the next poll.
+     */
+    @Test
+    public void feedsSavesAndDeletes() {
+        Car deleted = saveCar();
+        Car kept = saveCar();
+        carRepository.delete(deleted);
+        feed.recordDeletion(deleted.getId());
+
+        CarChanges changes = feed.changes(null, null, null, null).block();
+        assertEquals(2, changes.getChanges().size());
+        assertEquals(CarChange.Type.SAVED, changes.getChanges().get(0).getType());
+        assertEquals(kept.getId(), changes.getChanges().get(0).getId());
+        assertEquals(CarChange.Type.DELETED, changes.getChanges().get(1).getType());
+        assertEquals(deleted.getId(), changes.getChanges().get(1).getId());
+        assertFalse(changes.isMore());
+
+        CarChanges next = feed.changes(changes.getCursor(), null, null, null).block();
+        assertTrue(next.getChanges().isEmpty());
+    }
+
+    /**
+     * Tests that a batch larger than the maximum size is split across polls.
+     */
+    @Test
+    public void pagesThroughChanges() {
+        saveCar();
+        saveCar();
+        Car last = saveCar();
+
+        CarChanges first = feed.changes(null, null, 10, null).block();
+        assertEquals(2, first.getChanges().size());
+        assertTrue(first.isMore());
+
+        CarChanges second = feed.changes(first.getCursor(), null, null, null).block();
+        assertEquals(1, second.getChanges().size());
+        assertEquals(last.getId(), second.getChanges().get(0).getId());
+        assertFalse(second.isMore());
+    }
+
+    /**
+     * Tests that a long-poll is answered as soon as a car is saved.
+     * @throws Exception if the poll fails
+     */
+    @Test
+    public void longPollReturnsOnChange() throws Exception {
+        String cursor = feed.changes(null, null, null, null).block().getCursor();
+        long start = System.nanoTime();
+        CompletableFuture<CarChanges> poll =
+                feed.changes(cursor, null, null, Duration.ofSeconds(5)).toFuture();
+
+        Car car = saveCar();
+        feed.recordChange();
+
+        CarChanges changes = poll.get(5, TimeUnit.SECONDS);
+        assertEquals(1, changes.getChanges().size());
+        assertEquals(car.getId(), changes.getChanges().get(0).getId());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+    }
+
+    /**
+     * Tests that cursors older than the tombstones kept are refused.
+     */
+    @Test(expected = CursorExpiredException.class)
+    public void refusesExpiredCursor() {
+        feed.changes(null, LocalDateTime.now().minusDays(31), null, null);
+    }
+
+    private Car saveCar() {
+        Car car = new Car();
+        car.setCondition(Condition.USED);
+        car.setLocation(new Location(40.730610, -73.935242));
+        car.getDetails().setBody("sedan");
+        car.getDetails().setModel("Impala");
+        car.getDetails().setManufacturer(manufacturer);
+        return carRepository.save(car);
+    }
+}
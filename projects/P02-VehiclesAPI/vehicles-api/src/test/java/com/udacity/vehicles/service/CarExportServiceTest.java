@@ -0,0 +1,119 @@
+package com.udacity.vehicles.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Implements testing of the CarExportService class.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Import(CarExportService.class)
+public class CarExportServiceTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2019, 6, 1, 12, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CarExportService exportService;
+
+    private Long older;
+    private Long newest;
+    private Long newer;
+    private Long tied;
+
+    /**
+     * Stores four cars, not in ID order, two of them modified at the same time.
+     */
+    @Before
+    public void setup() {
+        Manufacturer manufacturer = entityManager.merge(new Manufacturer(101, "Chevrolet"));
+        older = persistCar(manufacturer, NOON.minusHours(1));
+        newest = persistCar(manufacturer, NOON.plusHours(2));
+        newer = persistCar(manufacturer, NOON.plusHours(1));
+        tied = persistCar(manufacturer, NOON.plusHours(1));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Tests that a full export reads every car in ID order and leaves none managed.
+     */
+    @Test
+    public void exportsEveryCarInIdOrder() {
+        List<Car> exported = new ArrayList<>();
+        long count = exportService.export(null, null, exported::add);
+
+        assertEquals(4, count);
+        assertEquals(Arrays.asList(older, newest, newer, tied), ids(exported));
+        exported.forEach(car -> assertFalse(entityManager.getEntityManager().contains(car)));
+    }
+
+    /**
+     * Tests that an incremental export reads the cars modified after the
+     * watermark, oldest change first.
+     */
+    @Test
+    public void exportsCarsModifiedAfterWatermark() {
+        List<Car> exported = new ArrayList<>();
+        exportService.export(NOON, null, exported::add);
+
+        assertEquals(Arrays.asList(newer, tied, newest), ids(exported));
+    }
+
+    /**
+     * Tests that a car modified at the same time as the last car of an
+     * export, with a greater ID, is read by the next export, and that the
+     * last car itself is not read again.
+     */
+    @Test
+    public void exportsCarsModifiedWithWatermarkAfterItsId() {
+        List<Car> exported = new ArrayList<>();
+        exportService.export(NOON.plusHours(1), newer, exported::add);
+
+        assertEquals(Arrays.asList(tied, newest), ids(exported));
+    }
+
+    private Long persistCar(Manufacturer manufacturer, LocalDateTime modifiedAt) {
+        Car car = new Car();
+        car.setCondition(Condition.USED);
+        car.setLocation(new Location(40.730610, -73.935242));
+        car.getDetails().setBody("sedan");
+        car.getDetails().setModel("Impala");
+        car.getDetails().setManufacturer(manufacturer);
+        Long id = entityManager.persistAndGetId(car, Long.class);
+        entityManager.flush();
+        // Auditing stamps the current time, backdate it through an update query.
+        entityManager.getEntityManager()
+                .createQuery("update Car c set c.modifiedAt = :modifiedAt where c.id = :id")
+                .setParameter("modifiedAt", modifiedAt)
+                .setParameter("id", id)
+                .executeUpdate();
+        return id;
+    }
+
+    private static List<Long> ids(List<Car> cars) {
+        List<Long> ids = new ArrayList<>();
+        cars.forEach(car -> ids.add(car.getId()));
+        return ids;
+    }
+}
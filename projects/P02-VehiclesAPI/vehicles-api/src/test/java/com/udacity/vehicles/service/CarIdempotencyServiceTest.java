@@ -0,0 +1,152 @@
+package com.udacity.vehicles.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarIdempotencyKeyRepository;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Implements testing of the CarIdempotencyService class, and of the version
+ * checks of the CarService updates. Writes are committed, as they would be
+ * outside of tests.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CarIdempotencyServiceTest {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private ManufacturerRepository manufacturerRepository;
+
+    @Autowired
+    private CarIdempotencyKeyRepository keyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CarService carService;
+    private CarIdempotencyService idempotencyService;
+
+    @Before
+    public void setup() {
+        carService = new CarService(carRepository, mock(MapsClient.class), mock(PriceClient.class),
+                mock(CarChangeFeed.class), mock(ApplicationEventPublisher.class),
+                Schedulers.immediate(), 4, 20, 100);
+        idempotencyService = new CarIdempotencyService(carService, carRepository, keyRepository,
+                transactionManager, Duration.ofDays(1));
+    }
+
+    @After
+    public void tearDown() {
+        keyRepository.deleteAll();
+        carRepository.deleteAll();
+    }
+
+    /**
+     * Tests that retries with the same key get the car created first.
+     */
+    @Test
+    public void createsOncePerKey() {
+        Car first = idempotencyService.create("order-1", newCar());
+        Car retried = idempotencyService.create("order-1", newCar());
+        Car other = idempotencyService.create("order-2", newCar());
+
+        assertEquals(first.getId(), retried.getId());
+        assertEquals(2, carRepository.count());
+        assertEquals(first.getId(), keyRepository.findById("order-1").get().getCarId());
+        assertEquals(other.getId(), keyRepository.findById("order-2").get().getCarId());
+    }
+
+    /**
+     * Tests that concurrent retries with the same key create a single car.
+     * @throws Exception if a retry fails
+     */
+    @Test
+    public void createsOnceUnderConcurrentRetries() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Car>> attempts = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                attempts.add(executor.submit((Callable<Car>) () ->
+                        idempotencyService.create("order-1", newCar())));
+            }
+            List<Long> ids = new ArrayList<>();
+            for (Future<Car> attempt : attempts) {
+                ids.add(attempt.get().getId());
+            }
+
+            assertEquals(1, ids.stream().distinct().collect(Collectors.toList()).size());
+            assertEquals(1, carRepository.count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that an update made from an outdated version of a car is refused.
+     */
+    @Test
+    public void refusesUpdateOfOutdatedVersion() {
+        Car created = carService.save(newCar());
+        Long readVersion = created.getVersion();
+
+        Car update = newCar();
+        update.setId(created.getId());
+        update.setVersion(readVersion);
+        update.getDetails().setModel("Camaro");
+        assertEquals(Long.valueOf(readVersion + 1), carService.save(update).getVersion());
+
+        Car lostUpdate = newCar();
+        lostUpdate.setId(created.getId());
+        lostUpdate.setVersion(readVersion);
+        lostUpdate.getDetails().setModel("Malibu");
+        try {
+            carService.save(lostUpdate);
+            fail("The update of an outdated version should be refused");
+        } catch (CarConflictException expected) {
+            assertEquals("Camaro", carRepository.findById(created.getId()).get()
+                    .getDetails().getModel());
+        }
+    }
+
+    private Car newCar() {
+        Car car = new Car();
+        car.setCondition(Condition.USED);
+        car.setLocation(new Location(40.730610, -73.935242));
+        car.getDetails().setBody("sedan");
+        car.getDetails().setModel("Impala");
+        car.getDetails().setManufacturer(manufacturerRepository.findById(101).get());
+        return car;
+    }
+}
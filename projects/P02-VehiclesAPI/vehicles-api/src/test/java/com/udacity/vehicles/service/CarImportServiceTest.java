@@ -0,0 +1,181 @@
+package com.udacity.vehicles.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.validation.Validation;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implements testing of the CarImportService class. Chunks are committed,
+ * as they would be outside of tests.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CarImportServiceTest {
+
+    private static final String CAR = "{\"condition\":\"USED\",\"details\":{\"body\":\"sedan\","
+            + "\"model\":\"%s\",\"manufacturer\":{\"code\":%d}},"
+            + "\"location\":{\"lat\":40.73061,\"lon\":-73.935242}%s}\n";
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private ManufacturerRepository manufacturerRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @After
+    public void tearDown() {
+        carRepository.deleteAll();
+    }
+
+    /**
+     * Tests that rejected rows are reported while the other rows are imported.
+     * @throws Exception if the input cannot be read
+     */
+    @Test
+    public void reportsRejectedRowsAndImportsTheRest() throws Exception {
+        Manufacturer chevrolet = manufacturerRepository.save(new Manufacturer(101, "Chevrolet"));
+        Car existing = new Car();
+        existing.setCondition(Condition.USED);
+        existing.setLocation(new Location(40.730610, -73.935242));
+        existing.getDetails().setBody("sedan");
+        existing.getDetails().setModel("Impala");
+        existing.getDetails().setManufacturer(chevrolet);
+        existing = carRepository.save(existing);
+
+        String input = car("Malibu", 101, "")
+                + car("", 101, "")
+                + "{\"condition\":\"BROKEN\"}\n"
+                + car("Camaro", 101, ",\"id\":" + existing.getId())
+                + car("Spark", 101, ",\"id\":999999")
+                + car("Model T", 999, "")
+                + car("Volt", 101, "");
+
+        CarImportResult result = service(3).importCars(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, result.getCreated());
+        assertEquals(1, result.getUpdated());
+        assertEquals(4, result.getFailed());
+        assertEquals("[1, 2, 4, 5]", result.getErrors().stream()
+                .map(CarImportResult.RowError::getRow).sorted()
+                .collect(Collectors.toList()).toString());
+        assertEquals("Camaro", carRepository.findById(existing.getId()).get()
+                .getDetails().getModel());
+        assertEquals(3, carRepository.count());
+    }
+
+    /**
+     * Tests that an update carrying a stale version is reported instead of
+     * overwriting the car, and that created cars start at their first version.
+     * @throws Exception if the input cannot be read
+     */
+    @Test
+    public void reportsStaleVersionsAndIgnoresVersionOfNewCars() throws Exception {
+        Manufacturer chevrolet = manufacturerRepository.save(new Manufacturer(101, "Chevrolet"));
+        Car existing = new Car();
+        existing.setCondition(Condition.USED);
+        existing.setLocation(new Location(40.730610, -73.935242));
+        existing.getDetails().setBody("sedan");
+        existing.getDetails().setModel("Impala");
+        existing.getDetails().setManufacturer(chevrolet);
+        existing = carRepository.save(existing);
+        Long stale = existing.getVersion();
+        existing.getDetails().setModel("Malibu");
+        existing = carRepository.save(existing);
+
+        String input = car("Camaro", 101, ",\"id\":" + existing.getId() + ",\"version\":" + stale)
+                + car("Volt", 101, ",\"version\":42");
+        CarImportResult result = service(10).importCars(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, result.getCreated());
+        assertEquals(0, result.getUpdated());
+        assertEquals(1, result.getFailed());
+        assertEquals(0, result.getErrors().get(0).getRow());
+        assertEquals("Malibu", carRepository.findById(existing.getId()).get()
+                .getDetails().getModel());
+        Car created = carRepository.findAll().stream()
+                .filter(car -> "Volt".equals(car.getDetails().getModel())).findFirst().get();
+        assertEquals(Long.valueOf(0), created.getVersion());
+
+        input = car("Camaro", 101, ",\"id\":" + existing.getId()
+                + ",\"version\":" + existing.getVersion());
+        result = service(10).importCars(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(1, result.getUpdated());
+        assertEquals("Camaro", carRepository.findById(existing.getId()).get()
+                .getDetails().getModel());
+    }
+
+    /**
+     * Tests that inserts are sent in JDBC batches rather than one statement per car.
+     * @throws Exception if the input cannot be read
+     */
+    @Test
+    public void insertsInJdbcBatches() throws Exception {
+        StringBuilder input = new StringBuilder("[");
+        for (int i = 0; i < 120; i++) {
+            input.append(i == 0 ? "" : ",").append(car("Impala", 101, "").trim());
+        }
+        input.append("]");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        CarImportResult result = service(100).importCars(
+                new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(120, result.getCreated());
+        assertEquals(120, statistics.getEntityInsertCount());
+        assertTrue("Prepared " + statistics.getPrepareStatementCount() + " statements",
+                statistics.getPrepareStatementCount() < 15);
+        statistics.setStatisticsEnabled(false);
+    }
+
+    private CarImportService service(int chunkSize) {
+        return new CarImportService(new ObjectMapper().findAndRegisterModules(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                carRepository, manufacturerRepository, entityManager, transactionManager,
+                mock(CarChangeFeed.class), mock(ApplicationEventPublisher.class), chunkSize, 100);
+    }
+
+    private static String car(String model, int manufacturer, String extra) {
+        return String.format(CAR, model, manufacturer, extra);
+    }
+}
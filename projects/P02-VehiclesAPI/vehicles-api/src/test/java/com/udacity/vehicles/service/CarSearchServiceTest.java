@@ -0,0 +1,214 @@
+package com.udacity.vehicles.service;
+
+import static com.udacity.vehicles.SqlStatements.assertAtMost;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.GeoHash;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.car.Details;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Implements testing of the CarSearchService class, comparing the searches
+ * made on the database with the ones made on the in-memory indexes.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class CarSearchServiceTest {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private ManufacturerRepository manufacturerRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private CarSearchService databaseSearch;
+    private CarSearchService indexSearch;
+
+    /**
+     * Stores cars with random details, spread around New York.
+     */
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        List<Manufacturer> manufacturers = Arrays.asList(
+                manufacturerRepository.save(new Manufacturer(101, "Chevrolet")),
+                manufacturerRepository.save(new Manufacturer(102, "Ford")),
+                manufacturerRepository.save(new Manufacturer(103, "BMW")));
+        List<String> bodies = Arrays.asList("sedan", "coupe", "suv");
+        List<String> colors = Arrays.asList("white", "black", "red", null);
+        Random random = new Random(7);
+        CarSpatialIndex spatialIndex = new CarSpatialIndex(carRepository, 0.01);
+        for (int i = 0; i < 300; i++) {
+            Car car = new Car();
+            car.setCondition(Condition.USED);
+            car.setLocation(new Location(40.7 + random.nextGaussian() * 0.1,
+                    -73.9 + random.nextGaussian() * 0.1));
+            car.getDetails().setBody(bodies.get(random.nextInt(bodies.size())));
+            car.getDetails().setModel("Impala");
+            car.getDetails().setManufacturer(manufacturers.get(random.nextInt(manufacturers.size())));
+            car.getDetails().setFuelType(random.nextBoolean() ? "Gasoline" : "Diesel");
+            car.getDetails().setExternalColor(colors.get(random.nextInt(colors.size())));
+            car.getDetails().setModelYear(2010 + random.nextInt(10));
+            car.getDetails().setMileage(random.nextInt(10) == 0 ? null : random.nextInt(100000));
+            car = carRepository.save(car);
+            spatialIndex.put(car.getId(), car.getLocation().getLat(), car.getLocation().getLon());
+        }
+        carRepository.flush();
+        CarFacetIndex facetIndex = new CarFacetIndex(carRepository);
+        facetIndex.load();
+
+        ObjectProvider<CarSpatialIndex> noSpatialIndex = mock(ObjectProvider.class);
+        ObjectProvider<CarFacetIndex> noFacetIndex = mock(ObjectProvider.class);
+        databaseSearch = new CarSearchService(carRepository, entityManager,
+                noSpatialIndex, noFacetIndex, 500, 1000, 20, 100);
+        ObjectProvider<CarSpatialIndex> withSpatialIndex = mock(ObjectProvider.class);
+        given(withSpatialIndex.getIfAvailable()).willReturn(spatialIndex);
+        ObjectProvider<CarFacetIndex> withFacetIndex = mock(ObjectProvider.class);
+        given(withFacetIndex.getIfAvailable()).willReturn(facetIndex);
+        indexSearch = new CarSearchService(carRepository, entityManager,
+                withSpatialIndex, withFacetIndex, 500, 1000, 20, 100);
+    }
+
+    /**
+     * Tests that the stored geohash is the standard one.
+     */
+    @Test
+    public void storesGeohash() {
+        assertEquals("ezs42", GeoHash.encode(42.6, -5.6, 5));
+        Car car = carRepository.findAll().get(0);
+        assertEquals(GeoHash.encode(car.getLocation().getLat(), car.getLocation().getLon(),
+                GeoHash.PRECISION), car.getGeohash());
+    }
+
+    /**
+     * Tests that both searches find the same cars within a distance.
+     */
+    @Test
+    public void searchesByRadius() {
+        for (double radiusKm : new double[] {0.5, 2, 8, 30}) {
+            List<Long> expected = nearbyIds(indexSearch.nearby(40.72, -73.95, radiusKm, null));
+            assertEquals(expected, nearbyIds(databaseSearch.nearby(40.72, -73.95, radiusKm, null)));
+        }
+    }
+
+    /**
+     * Tests that both searches find the same nearest cars.
+     */
+    @Test
+    public void searchesNearest() {
+        List<NearbyCar> nearest = indexSearch.nearest(40.75, -73.98, 15);
+        assertEquals(15, nearest.size());
+        assertEquals(nearbyIds(nearest), nearbyIds(databaseSearch.nearest(40.75, -73.98, 15)));
+    }
+
+    /**
+     * Tests that both detail searches find the cars passing the filters, and
+     * count them the same way.
+     */
+    @Test
+    public void searchesByDetails() {
+        CarSearchCriteria byManufacturer = new CarSearchCriteria();
+        byManufacturer.setManufacturer(102);
+        CarSearchCriteria byRanges = new CarSearchCriteria();
+        byRanges.setMinModelYear(2013);
+        byRanges.setMaxModelYear(2016);
+        byRanges.setMaxMileage(50000);
+        CarSearchCriteria combined = new CarSearchCriteria();
+        combined.setBody("suv");
+        combined.setFuelType("Diesel");
+        combined.setExternalColor("red");
+        combined.setMinMileage(20000);
+        CarSearchCriteria none = new CarSearchCriteria();
+        none.setExternalColor("purple");
+
+        List<Car> all = carRepository.findAll();
+        for (CarSearchCriteria criteria : Arrays.asList(new CarSearchCriteria(),
+                byManufacturer, byRanges, combined, none)) {
+            List<Long> expected = all.stream()
+                    .filter(car -> matches(criteria, car.getDetails()))
+                    .map(Car::getId).sorted().collect(Collectors.toList());
+            CarSearchResult fromIndex = assertAtMost(entityManagerFactory, 1,
+                    () -> indexSearch.search(criteria, null, 10));
+            CarSearchResult fromDatabase = assertAtMost(entityManagerFactory,
+                    2 + CarFacetIndex.FACETS.size(), () -> databaseSearch.search(criteria, null, 10));
+
+            assertEquals(expected.size(), fromIndex.getTotal());
+            assertEquals(expected.subList(0, Math.min(10, expected.size())),
+                    ids(fromIndex.getCars()));
+            assertEquals(ids(fromIndex.getCars()), ids(fromDatabase.getCars()));
+            assertEquals(fromIndex.getTotal(), fromDatabase.getTotal());
+            assertEquals(fromIndex.getNextAfter(), fromDatabase.getNextAfter());
+            assertEquals(fromIndex.getFacets(), fromDatabase.getFacets());
+
+            if (fromIndex.getNextAfter() != null) {
+                assertEquals(expected.subList(10, Math.min(20, expected.size())), ids(
+                        indexSearch.search(criteria, fromIndex.getNextAfter(), 10).getCars()));
+            }
+        }
+    }
+
+    /**
+     * Tests that out of range searches are refused.
+     */
+    @Test(expected = InvalidSearchException.class)
+    public void refusesTooLargeRadius() {
+        indexSearch.nearby(40.72, -73.95, 5000, null);
+    }
+
+    /**
+     * Tells whether a car passes the filters of a search, the way both
+     * searches are expected to.
+     */
+    private static boolean matches(CarSearchCriteria criteria, Details details) {
+        return (criteria.getManufacturer() == null || details.getManufacturer() != null
+                && criteria.getManufacturer().equals(details.getManufacturer().getCode()))
+                && (criteria.getBody() == null || criteria.getBody().equals(details.getBody()))
+                && (criteria.getFuelType() == null
+                        || criteria.getFuelType().equals(details.getFuelType()))
+                && (criteria.getExternalColor() == null
+                        || criteria.getExternalColor().equals(details.getExternalColor()))
+                && CarSearchCriteria.inRange(details.getModelYear(),
+                        criteria.getMinModelYear(), criteria.getMaxModelYear())
+                && CarSearchCriteria.inRange(details.getMileage(),
+                        criteria.getMinMileage(), criteria.getMaxMileage());
+    }
+
+    private static List<Long> ids(List<Car> cars) {
+        List<Long> ids = new ArrayList<>();
+        cars.forEach(car -> ids.add(car.getId()));
+        return ids;
+    }
+
+    private static List<Long> nearbyIds(List<NearbyCar> cars) {
+        List<Long> ids = new ArrayList<>();
+        cars.forEach(car -> ids.add(car.getCar().getId()));
+        return ids;
+    }
+}
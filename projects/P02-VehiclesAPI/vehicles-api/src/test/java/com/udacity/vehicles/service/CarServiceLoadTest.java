@@ -0,0 +1,213 @@
+package com.udacity.vehicles.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import com.udacity.vehicles.client.maps.AddressCache;
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceCache;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.client.prices.PriceFrameClient;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.modelmapper.ModelMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Compares the blocking and reactive read paths of the CarService under
+ * concurrent load, with downstream services that answer after a fixed delay.
+ * Elapsed times are logged only, as they depend on the machine; the tests
+ * assert on the number of downstream calls in flight instead.
+ */
+public class CarServiceLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CarServiceLoadTest.class);
+
+    /**
+     * Number of concurrent lookups issued in each mode.
+     */
+    private static final int REQUESTS = 400;
+
+    /**
+     * Size of the simulated servlet worker pool for the blocking mode.
+     */
+    private static final int WORKERS = 20;
+
+    private static final Duration DOWNSTREAM_LATENCY = Duration.ofMillis(100);
+
+    private final Downstream maps = new Downstream();
+    private final Downstream pricing = new Downstream();
+
+    private Scheduler jpaScheduler;
+    private CarService carService;
+
+    /**
+     * Creates a CarService whose repository and downstream services are stubbed.
+     */
+    @Before
+    public void setup() {
+        CarRepository repository = mock(CarRepository.class);
+        given(repository.findById(anyLong())).willAnswer(invocation -> {
+            Car car = new Car();
+            car.setId(invocation.getArgument(0));
+            car.setLocation(new Location(40.730610, -73.935242));
+            return Optional.of(car);
+        });
+
+        WebClient pricingClient = delayedClient(pricing,
+                "{\"currency\":\"USD\",\"price\":12345.67,\"vehicleId\":1}");
+        jpaScheduler = Schedulers.fromExecutorService(Executors.newFixedThreadPool(10));
+        carService = new CarService(repository,
+                new MapsClient(delayedClient(maps,
+                        "{\"address\":\"777 Brockton Avenue\",\"city\":\"Abington\","
+                        + "\"state\":\"MA\",\"zip\":\"2351\"}"),
+                        new ModelMapper(), new AddressCache(0.001, 1000, Duration.ofHours(1))),
+                new PriceClient(pricingClient, new PriceCache(Duration.ZERO, Duration.ZERO, 1000),
+                        new PriceFrameClient(pricingClient, ""), "", false),
+                mock(CarChangeFeed.class), mock(ApplicationEventPublisher.class), jpaScheduler, 16, 20, 100);
+    }
+
+    @After
+    public void tearDown() {
+        jpaScheduler.dispose();
+    }
+
+    /**
+     * Tests that the blocking read path waits on at most one price request
+     * per worker, while the reactive one is not bound by a worker pool and
+     * has more price requests in flight than there are workers.
+     * @throws Exception if any of the blocking lookups fails
+     */
+    @Test
+    public void reactiveModeIsNotBoundByWorkerPool() throws Exception {
+        long blockingMillis = runBlocking();
+        int blockingPeak = pricing.peak.getAndSet(0);
+        long reactiveMillis = runReactive();
+        int reactivePeak = pricing.peak.get();
+
+        log.info("{} lookups with {} ms downstream latency: blocking {} ms, {} price requests"
+                + " in flight at most, reactive {} ms, {} in flight at most", REQUESTS,
+                DOWNSTREAM_LATENCY.toMillis(), blockingMillis, blockingPeak, reactiveMillis,
+                reactivePeak);
+
+        assertTrue("Blocking mode had " + blockingPeak + " price requests in flight",
+                blockingPeak <= WORKERS);
+        assertTrue("Reactive mode had " + reactivePeak + " price requests in flight",
+                reactivePeak > WORKERS);
+    }
+
+    /**
+     * Tests that enriching a listing issues one price request per car and one
+     * address request per address cache cell, with the calls fanned out.
+     */
+    @Test
+    public void listEnrichmentFansOutOncePerLocation() {
+        List<Car> cars = new ArrayList<>();
+        for (long id = 1; id <= REQUESTS; id++) {
+            Car car = new Car();
+            car.setId(id);
+            car.setLocation(new Location(40.730610, id % 2 == 0 ? -73.935242 : -73.935243));
+            cars.add(car);
+        }
+
+        long start = System.nanoTime();
+        List<Car> enriched = carService.enrich(cars).block();
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        log.info("Enriched {} cars in {} ms", REQUESTS, elapsedMillis);
+        assertEquals(REQUESTS, enriched.size());
+        assertEquals("12345.67", enriched.get(0).getPrice());
+        assertEquals("Abington", enriched.get(REQUESTS - 1).getLocation().getCity());
+        assertEquals(REQUESTS, pricing.requests.get());
+        assertEquals(1, maps.requests.get());
+    }
+
+    private long runBlocking() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS);
+        try {
+            long start = System.nanoTime();
+            List<Future<Car>> futures = new ArrayList<>();
+            for (long id = 1; id <= REQUESTS; id++) {
+                final long vehicleId = id;
+                futures.add(workers.submit(() -> carService.findById(vehicleId)));
+            }
+            for (Future<Car> future : futures) {
+                assertEquals("12345.67", future.get().getPrice());
+            }
+            return Duration.ofNanos(System.nanoTime() - start).toMillis();
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private long runReactive() {
+        long start = System.nanoTime();
+        List<Car> cars = Flux.range(1, REQUESTS)
+                .flatMap(id -> carService.findByIdAsync((long) id), REQUESTS)
+                .collectList()
+                .block();
+        assertEquals(REQUESTS, cars.size());
+        return Duration.ofNanos(System.nanoTime() - start).toMillis();
+    }
+
+    /**
+     * Creates a web client that answers every request with the given JSON
+     * body once the downstream latency has elapsed, without holding a thread.
+     * @param downstream counts the requests and those in flight
+     * @param body JSON body of every response
+     * @return stubbed web client
+     */
+    private static WebClient delayedClient(Downstream downstream, String body) {
+        return WebClient.builder()
+                .exchangeFunction(request -> Mono.delay(DOWNSTREAM_LATENCY)
+                        .doOnSubscribe(subscription -> downstream.started())
+                        .doOnNext(tick -> downstream.inFlight.decrementAndGet())
+                        .map(tick -> ClientResponse.create(HttpStatus.OK)
+                                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                .body(body)
+                                .build()))
+                .build();
+    }
+
+    /**
+     * Counts the requests made to a downstream service, and the most of
+     * them waiting for their response at the same time.
+     */
+    private static final class Downstream {
+
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+
+        private void started() {
+            requests.incrementAndGet();
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        }
+    }
+}
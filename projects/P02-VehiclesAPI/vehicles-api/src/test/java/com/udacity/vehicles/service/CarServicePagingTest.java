@@ -0,0 +1,134 @@
+package com.udacity.vehicles.service;
+
+import static com.udacity.vehicles.SqlStatements.assertAtMost;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManagerFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Implements testing of the keyset pagination of the CarService class.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class CarServicePagingTest {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private ManufacturerRepository manufacturerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private CarService carService;
+    private final List<Long> ids = new ArrayList<>();
+
+    /**
+     * Stores seven cars, and creates a CarService whose downstream services are down.
+     */
+    @Before
+    public void setup() {
+        Manufacturer manufacturer = manufacturerRepository.save(new Manufacturer(101, "Chevrolet"));
+        for (int i = 0; i < 7; i++) {
+            Car car = new Car();
+            car.setCondition(Condition.USED);
+            car.setLocation(new Location(40.730610, -73.935242));
+            car.getDetails().setBody("sedan");
+            car.getDetails().setModel("Impala");
+            car.getDetails().setManufacturer(manufacturer);
+            ids.add(carRepository.save(car).getId());
+        }
+        carRepository.flush();
+
+        MapsClient mapsClient = mock(MapsClient.class);
+        given(mapsClient.lookup(anyDouble(), anyDouble())).willReturn(Mono.error(new IllegalStateException()));
+        PriceClient priceClient = mock(PriceClient.class);
+        given(priceClient.lookup(any())).willReturn(Mono.error(new IllegalStateException()));
+        carService = new CarService(carRepository, mapsClient, priceClient,
+                mock(CarChangeFeed.class), mock(ApplicationEventPublisher.class),
+                Schedulers.immediate(), 4, 3, 5);
+    }
+
+    /**
+     * Tests that a page is read with a single statement.
+     */
+    @Test
+    public void readsPageInOneStatement() {
+        CarPage page = assertAtMost(entityManagerFactory, 1,
+                () -> carService.listPage(ids.get(1), null, null).block());
+        assertEquals(ids.subList(2, 5), idsOf(page));
+    }
+
+    /**
+     * Tests that following the "next" cursors walks the whole fleet once.
+     */
+    @Test
+    public void walksForwardThroughAllPages() {
+        CarPage first = carService.listPage(null, null, null).block();
+        assertEquals(ids.subList(0, 3), idsOf(first));
+        assertNull(first.getPreviousBefore());
+
+        CarPage second = carService.listPage(first.getNextAfter(), null, null).block();
+        assertEquals(ids.subList(3, 6), idsOf(second));
+        assertEquals(ids.get(3), second.getPreviousBefore());
+
+        CarPage last = carService.listPage(second.getNextAfter(), null, null).block();
+        assertEquals(ids.subList(6, 7), idsOf(last));
+        assertNull(last.getNextAfter());
+    }
+
+    /**
+     * Tests that the "prev" cursor leads back to the previous page.
+     */
+    @Test
+    public void walksBackwardFromACursor() {
+        CarPage page = carService.listPage(null, ids.get(6), 4).block();
+        assertEquals(ids.subList(2, 6), idsOf(page));
+        assertEquals(ids.get(5), page.getNextAfter());
+        assertEquals(ids.get(2), page.getPreviousBefore());
+
+        CarPage first = carService.listPage(null, page.getPreviousBefore(), 4).block();
+        assertEquals(ids.subList(0, 2), idsOf(first));
+        assertNull(first.getPreviousBefore());
+    }
+
+    /**
+     * Tests that requested page sizes are capped.
+     */
+    @Test
+    public void capsPageSize() {
+        CarPage page = carService.listPage(null, null, 1000).block();
+        assertEquals(5, page.getSize());
+        assertEquals(ids.subList(0, 5), idsOf(page));
+    }
+
+    private static List<Long> idsOf(CarPage page) {
+        return page.getCars().stream().map(Car::getId).collect(Collectors.toList());
+    }
+}
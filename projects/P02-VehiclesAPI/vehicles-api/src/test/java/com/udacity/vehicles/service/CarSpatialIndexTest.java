@@ -0,0 +1,100 @@
+package com.udacity.vehicles.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.service.CarSpatialIndex.Hit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Implements testing of the CarSpatialIndex class against a full scan.
+ */
+public class CarSpatialIndexTest {
+
+    private final Random random = new Random(42);
+    private final List<double[]> cars = new ArrayList<>();
+    private CarSpatialIndex index;
+
+    /**
+     * Indexes cars around New York, and a few on both sides of the antimeridian.
+     */
+    @Before
+    public void setup() {
+        index = new CarSpatialIndex(mock(CarRepository.class), 0.01);
+        for (int i = 0; i < 2000; i++) {
+            add(40.7 + random.nextGaussian() * 0.2, -73.9 + random.nextGaussian() * 0.2);
+        }
+        for (int i = 0; i < 50; i++) {
+            add(-17 + random.nextDouble(), random.nextBoolean()
+                    ? 179.5 + random.nextDouble() * 0.5 : -180 + random.nextDouble() * 0.5);
+        }
+    }
+
+    /**
+     * Tests that area searches find exactly the cars a full scan finds.
+     */
+    @Test
+    public void findsCarsWithinRadius() {
+        for (int i = 0; i < 50; i++) {
+            double lat = 40.7 + random.nextGaussian() * 0.2;
+            double lon = -73.9 + random.nextGaussian() * 0.2;
+            double radiusKm = random.nextDouble() * 20;
+            assertEquals(scan(lat, lon, radiusKm, Integer.MAX_VALUE),
+                    ids(index.within(lat, lon, radiusKm, Integer.MAX_VALUE)));
+        }
+        assertEquals(scan(-16.5, 179.9, 60, Integer.MAX_VALUE),
+                ids(index.within(-16.5, 179.9, 60, Integer.MAX_VALUE)));
+    }
+
+    /**
+     * Tests that the nearest cars are the ones a full scan finds.
+     */
+    @Test
+    public void findsNearestCars() {
+        assertEquals(scan(40.75, -73.95, Double.MAX_VALUE, 25), ids(index.nearest(40.75, -73.95, 25)));
+        assertEquals(scan(0, 0, Double.MAX_VALUE, 3), ids(index.nearest(0, 0, 3)));
+    }
+
+    /**
+     * Tests that moved and removed cars are found at their new place only.
+     */
+    @Test
+    public void followsMovesAndRemovals() {
+        index.put(0L, 10.0, 10.0);
+        index.put(0L, 20.0, 20.0);
+        index.put(1L, 20.001, 20.0);
+        index.remove(1L);
+
+        assertEquals(0, index.within(10, 10, 1, 10).size());
+        List<Hit> hits = index.within(20, 20, 1, 10);
+        assertEquals(1, hits.size());
+        assertEquals(0L, hits.get(0).getId());
+    }
+
+    private void add(double lat, double lon) {
+        long id = 100 + cars.size();
+        cars.add(new double[] {id, lat, lon});
+        index.put(id, lat, lon);
+    }
+
+    private List<Long> scan(double lat, double lon, double radiusKm, int limit) {
+        return cars.stream()
+                .filter(car -> Location.distanceKm(lat, lon, car[1], car[2]) <= radiusKm)
+                .sorted(Comparator.comparingDouble(car -> Location.distanceKm(lat, lon, car[1], car[2])))
+                .limit(limit)
+                .map(car -> (long) car[0])
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(List<Hit> hits) {
+        return hits.stream().map(Hit::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,219 @@
+package com.udacity.vehicles.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.GeoHash;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implements testing of the CarTelemetryService class against the database,
+ * with its journal in a temporary folder.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CarTelemetryServiceTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2020, 1, 1, 12, 0);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private ManufacturerRepository manufacturerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private CarChangeFeed changeFeed;
+    private CarSpatialIndex spatialIndex;
+    private File journalDir;
+    private Car car;
+
+    @Before
+    public void setup() throws Exception {
+        changeFeed = mock(CarChangeFeed.class);
+        spatialIndex = new CarSpatialIndex(carRepository, 0.01);
+        journalDir = folder.newFolder("telemetry");
+
+        car = new Car();
+        car.setCondition(Condition.USED);
+        car.setLocation(new Location(40.730610, -73.935242));
+        car.getDetails().setBody("sedan");
+        car.getDetails().setModel("Impala");
+        car.getDetails().setManufacturer(manufacturerRepository.findById(101).get());
+        car = carRepository.save(car);
+    }
+
+    @After
+    public void tearDown() {
+        carRepository.deleteAll();
+    }
+
+    /**
+     * Tests that only the latest report of a car is written, in a single flush
+     * that moves the car and bumps its version.
+     */
+    @Test
+    public void writesLatestReportPerCar() {
+        CarTelemetryService service = newService(100);
+        service.record(Arrays.asList(
+                new CarLocationReport(car.getId(), 40.75, -73.99, NOON.plusSeconds(10)),
+                new CarLocationReport(car.getId(), 40.76, -73.98, NOON.plusSeconds(20)),
+                new CarLocationReport(car.getId(), 40.70, -74.00, NOON)));
+        service.record(Collections.singletonList(
+                new CarLocationReport(Long.MAX_VALUE, 10.0, 10.0, NOON)));
+        assertEquals(2, service.pending());
+
+        assertEquals(1, service.flush());
+        assertEquals(0, service.pending());
+        assertEquals(0, service.flush());
+
+        Car moved = carRepository.findById(car.getId()).get();
+        assertEquals(40.76, moved.getLocation().getLat(), 0);
+        assertEquals(-73.98, moved.getLocation().getLon(), 0);
+        assertEquals(GeoHash.encode(40.76, -73.98, GeoHash.PRECISION), moved.getGeohash());
+        assertEquals(Long.valueOf(car.getVersion() + 1), moved.getVersion());
+        assertEquals(1, spatialIndex.size());
+        verify(changeFeed).recordChange();
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        service.bindTo(registry);
+        assertEquals(4, registry.get("vehicles.telemetry.reports").functionCounter().count(), 0);
+        assertEquals(2, registry.get("vehicles.telemetry.coalesced").functionCounter().count(), 0);
+        assertEquals(0, registry.get("vehicles.telemetry.pending").gauge().value(), 0);
+        assertEquals(1, registry.get("vehicles.telemetry.flush").functionTimer().count(), 0);
+    }
+
+    /**
+     * Tests that a report older than the position already written, arriving
+     * after it was flushed, does not move the car back.
+     */
+    @Test
+    public void dropsReportsOlderThanWrittenPosition() {
+        CarTelemetryService service = newService(100);
+        service.record(Collections.singletonList(
+                new CarLocationReport(car.getId(), 40.76, -73.98, NOON.plusSeconds(20))));
+        assertEquals(1, service.flush());
+
+        service.record(Collections.singletonList(
+                new CarLocationReport(car.getId(), 40.70, -74.00, NOON)));
+        assertEquals(0, service.flush());
+
+        Car kept = carRepository.findById(car.getId()).get();
+        assertEquals(40.76, kept.getLocation().getLat(), 0);
+        assertEquals(NOON.plusSeconds(20), kept.getLocationReportedAt());
+        assertEquals(Long.valueOf(car.getVersion() + 1), kept.getVersion());
+    }
+
+    /**
+     * Tests that reports accepted but not written before a crash are written
+     * after a restart, and that their journal is dropped once written.
+     * @throws Exception if the journal cannot be closed
+     */
+    @Test
+    public void replaysJournalAfterCrash() throws Exception {
+        CarTelemetryService crashed = newService(100);
+        crashed.record(Collections.singletonList(
+                new CarLocationReport(car.getId(), 40.76, -73.98, NOON)));
+        crashed.abandon();
+
+        CarTelemetryService restarted = newService(100);
+        assertEquals(1, restarted.pending());
+        assertEquals(1, restarted.flush());
+        assertEquals(40.76, carRepository.findById(car.getId()).get().getLocation().getLat(), 0);
+
+        restarted.shutdown();
+        assertEquals(0, newService(100).pending());
+        assertEquals(1, journalDir.list((dir, name) -> name.endsWith(".log")).length);
+    }
+
+    /**
+     * Tests that a journal directory in use by another instance is refused,
+     * rather than having its segments deleted or replayed.
+     * @throws Exception if the journal cannot be closed
+     */
+    @Test
+    public void refusesJournalInUse() throws Exception {
+        CarTelemetryService first = newService(100);
+        first.record(Collections.singletonList(
+                new CarLocationReport(car.getId(), 40.76, -73.98, NOON)));
+        try {
+            newService(100);
+            fail("A journal directory in use should be refused");
+        } catch (IllegalStateException expected) {
+            assertEquals(1, first.pending());
+        }
+
+        first.abandon();
+        assertEquals(1, newService(100).pending());
+    }
+
+    /**
+     * Tests that reports are refused when too many cars wait for a flush,
+     * and that invalid reports are refused.
+     */
+    @Test
+    public void refusesReportsBeyondCapacity() {
+        CarTelemetryService service = newService(1);
+        service.record(Collections.singletonList(
+                new CarLocationReport(car.getId(), 40.76, -73.98, NOON)));
+        try {
+            service.record(Collections.singletonList(
+                    new CarLocationReport(car.getId() + 1, 40.76, -73.98, NOON)));
+            fail("A report beyond capacity should be refused");
+        } catch (TelemetryOverloadedException expected) {
+            assertEquals(1, service.pending());
+        }
+        try {
+            service.record(Collections.singletonList(
+                    new CarLocationReport(car.getId(), 91.0, -73.98, NOON)));
+            fail("A report with an invalid latitude should be refused");
+        } catch (InvalidLocationReportException expected) {
+            assertEquals(1, service.pending());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private CarTelemetryService newService(int maxPending) {
+        ObjectProvider<CarSpatialIndex> provider = mock(ObjectProvider.class);
+        given(provider.getIfAvailable()).willReturn(spatialIndex);
+        CarTelemetryService service = new CarTelemetryService(jdbcTemplate, transactionManager,
+                changeFeed, provider, journalDir.getPath(), maxPending, 2);
+        service.recover();
+        return service;
+    }
+}